@@ -0,0 +1,500 @@
+package org.voidnotes.notes.base;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class ContentIndex {
+    private static final String INDEX_FILE_NAME = "content_index.bin";
+    private static final int INDEX_FILE_MAGIC = 0x564E4349;
+    private static final int INDEX_FILE_VERSION = 2;
+
+    private static final int MIN_TERM_LENGTH = 2;
+    private static final int MAX_TERM_LENGTH = 64;
+
+    private static final long UPDATE_DELAY_MILLIS = 500;
+    private static final long RECONCILE_DELAY_SECONDS = 2;
+    private static final long PERSIST_DELAY_SECONDS = 10;
+
+    public record Hit(Path path, String label, int offset, int count) {
+    }
+
+    private record IndexedNote(int id, String name, long lastModified, long size, Fingerprint fingerprint, String[] terms) {
+    }
+
+    private record PendingUpdate(CharSequence text, Fingerprint fingerprint) {
+    }
+
+    private static class Postings {
+        private final int termId;
+        private int[] ids = new int[2];
+        private int[][] offsets = new int[2][];
+        private int size = 0;
+
+        private Postings(int termId) {
+            this.termId = termId;
+        }
+
+        private void put(int id, int[] termOffsets) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                offsets[index] = termOffsets;
+                return;
+            }
+            index = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            System.arraycopy(offsets, index, offsets, index + 1, size - index);
+            ids[index] = id;
+            offsets[index] = termOffsets;
+            size++;
+        }
+
+        private void remove(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            System.arraycopy(offsets, index + 1, offsets, index, size - index - 1);
+            size--;
+            offsets[size] = null;
+        }
+    }
+
+    private final File indexFile;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(Threads.daemonThreadFactory("content-index"));
+    private final Map<Path, PendingUpdate> pendingUpdates = new HashMap<>();
+
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<String, IndexedNote> notesByName = new HashMap<>();
+    // ids of removed notes are reused, so deletes and renames don't grow the list or the index file
+    private final List<IndexedNote> notesById = new ArrayList<>();
+    private final Deque<Integer> freeIds = new ArrayDeque<>();
+    private final List<String> termsById = new ArrayList<>();
+    private TrigramIndex termGrams = new TrigramIndex();
+
+    private Path directory;
+    private boolean reconcileScheduled = false;
+    private boolean persistScheduled = false;
+    private boolean modified = false;
+
+    public ContentIndex(File configDirectory) {
+        indexFile = new File(configDirectory, INDEX_FILE_NAME);
+    }
+
+    public void open(Path directory, NoteIndex noteIndex) {
+        Path absoluteDirectory = directory.toAbsolutePath();
+        executor.execute(() -> {
+            synchronized (this) {
+                clear();
+                this.directory = absoluteDirectory;
+                load();
+            }
+            reconcile(noteIndex.getNotes());
+        });
+    }
+
+    public void reconcile(NoteIndex noteIndex) {
+        synchronized (pendingUpdates) {
+            if (reconcileScheduled) {
+                return;
+            }
+            reconcileScheduled = true;
+        }
+        executor.schedule(() -> {
+            synchronized (pendingUpdates) {
+                reconcileScheduled = false;
+            }
+            applyPendingUpdates();
+            reconcile(noteIndex.getNotes());
+        }, RECONCILE_DELAY_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public void update(Path path, CharSequence text, Fingerprint fingerprint) {
+        synchronized (pendingUpdates) {
+            boolean scheduled = !pendingUpdates.isEmpty();
+            pendingUpdates.put(path.toAbsolutePath(), new PendingUpdate(text, fingerprint));
+            if (!scheduled) {
+                executor.schedule(this::applyPendingUpdates, UPDATE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    public void flush() {
+        try {
+            executor.submit(() -> {
+                applyPendingUpdates();
+                persist();
+            }).get();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    public synchronized List<Hit> search(String query) {
+        List<String> queryTerms = new ArrayList<>();
+        tokenize(query.toLowerCase(), (term, offset) -> queryTerms.add(term));
+        if (queryTerms.isEmpty() || directory == null) {
+            return Collections.emptyList();
+        }
+
+        Map<Integer, int[]> matches = null;
+        for (String queryTerm : queryTerms) {
+            Map<Integer, int[]> termMatches = new HashMap<>();
+            for (Postings postings : getMatchingPostings(queryTerm)) {
+                for (int i = 0; i < postings.size; i++) {
+                    int id = postings.ids[i];
+                    if (matches != null && !matches.containsKey(id)) {
+                        continue;
+                    }
+                    int[] termOffsets = postings.offsets[i];
+                    int[] match = termMatches.get(id);
+                    if (match == null) {
+                        termMatches.put(id, new int[]{termOffsets[0], termOffsets.length});
+                    } else {
+                        match[0] = Math.min(match[0], termOffsets[0]);
+                        match[1] += termOffsets.length;
+                    }
+                }
+            }
+            if (matches != null) {
+                for (Map.Entry<Integer, int[]> entry : termMatches.entrySet()) {
+                    int[] previousMatch = matches.get(entry.getKey());
+                    entry.getValue()[0] = Math.min(entry.getValue()[0], previousMatch[0]);
+                    entry.getValue()[1] += previousMatch[1];
+                }
+            }
+            matches = termMatches;
+            if (matches.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(matches.size());
+        for (Map.Entry<Integer, int[]> entry : matches.entrySet()) {
+            String name = notesById.get(entry.getKey()).name();
+            String label = name.substring(0, name.length() - NoteIndex.NOTE_EXTENSION.length());
+            hits.add(new Hit(directory.resolve(name), label, entry.getValue()[0], entry.getValue()[1]));
+        }
+        hits.sort(Comparator.comparingInt(Hit::count).reversed().thenComparing(Hit::label));
+        return hits;
+    }
+
+    private List<Postings> getMatchingPostings(String queryTerm) {
+        long[] candidates = termGrams.getCandidates(queryTerm.toCharArray(), true);
+        if (candidates == null) {
+            return new ArrayList<>(terms.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false).values());
+        }
+        List<Postings> matchingPostings = new ArrayList<>();
+        for (int word = 0; word < candidates.length; word++) {
+            long bits = candidates[word];
+            while (bits != 0) {
+                String term = termsById.get((word << 6) + Long.numberOfTrailingZeros(bits));
+                if (term != null && term.contains(queryTerm)) {
+                    matchingPostings.add(terms.get(term));
+                }
+                bits &= bits - 1;
+            }
+        }
+        return matchingPostings;
+    }
+
+    private Postings getOrCreatePostings(String term) {
+        Postings postings = terms.get(term);
+        if (postings == null) {
+            postings = new Postings(termsById.size());
+            termsById.add(term);
+            termGrams.add(postings.termId, term.toCharArray());
+            terms.put(term, postings);
+        }
+        return postings;
+    }
+
+    private void applyPendingUpdates() {
+        Map<Path, PendingUpdate> updates;
+        synchronized (pendingUpdates) {
+            updates = new HashMap<>(pendingUpdates);
+            pendingUpdates.clear();
+        }
+        for (Map.Entry<Path, PendingUpdate> entry : updates.entrySet()) {
+            try {
+                PendingUpdate update = entry.getValue();
+                index(entry.getKey(), Files.getLastModifiedTime(entry.getKey()).toMillis(), Files.size(entry.getKey()), update.text(), update.fingerprint());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void reconcile(NoteIndex.Note[] notes) {
+        Set<String> existingNames = new HashSet<>();
+        for (NoteIndex.Note note : notes) {
+            String name;
+            IndexedNote indexedNote;
+            synchronized (this) {
+                if (directory == null || !note.path().startsWith(directory)) {
+                    return;
+                }
+                name = directory.relativize(note.path()).toString();
+                indexedNote = notesByName.get(name);
+            }
+            existingNames.add(name);
+            if (indexedNote != null && indexedNote.lastModified() == note.lastModified() && indexedNote.size() == note.size()) {
+                continue;
+            }
+            try {
+                String text = Files.readString(note.path());
+                index(note.path(), note.lastModified(), note.size(), text, Fingerprint.of(text));
+            } catch (IOException e) {
+                // unreadable or not UTF-8 encoded, will be retried on next reconcile
+            }
+        }
+
+        synchronized (this) {
+            for (String name : new ArrayList<>(notesByName.keySet())) {
+                if (!existingNames.contains(name)) {
+                    remove(notesByName.get(name));
+                }
+            }
+        }
+        schedulePersist();
+    }
+
+    private void index(Path path, long lastModified, long size, CharSequence text, Fingerprint fingerprint) {
+        synchronized (this) {
+            if (directory == null || !path.startsWith(directory)) {
+                return;
+            }
+            String name = directory.relativize(path).toString();
+            IndexedNote previous = notesByName.get(name);
+            if (previous != null && fingerprint.equals(previous.fingerprint())) {
+                if (previous.lastModified() != lastModified || previous.size() != size) {
+                    IndexedNote indexedNote = new IndexedNote(previous.id(), name, lastModified, size, fingerprint, previous.terms());
+                    notesById.set(previous.id(), indexedNote);
+                    notesByName.put(name, indexedNote);
+                    modified = true;
+                    schedulePersist();
+                }
+                return;
+            }
+        }
+
+        Map<String, List<Integer>> noteTerms = new HashMap<>();
+        tokenize(text, (term, offset) -> noteTerms.computeIfAbsent(term, t -> new ArrayList<>()).add(offset));
+
+        synchronized (this) {
+            if (directory == null || !path.startsWith(directory)) {
+                return;
+            }
+            String name = directory.relativize(path).toString();
+            IndexedNote previous = notesByName.get(name);
+            int id = previous != null ? previous.id() : freeIds.isEmpty() ? notesById.size() : freeIds.pop();
+            if (previous != null) {
+                for (String term : previous.terms()) {
+                    if (!noteTerms.containsKey(term)) {
+                        removePosting(term, id);
+                    }
+                }
+            }
+            for (Map.Entry<String, List<Integer>> entry : noteTerms.entrySet()) {
+                getOrCreatePostings(entry.getKey()).put(id, entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+            }
+            IndexedNote indexedNote = new IndexedNote(id, name, lastModified, size, fingerprint, noteTerms.keySet().toArray(new String[0]));
+            if (id < notesById.size()) {
+                notesById.set(id, indexedNote);
+            } else {
+                notesById.add(indexedNote);
+            }
+            notesByName.put(name, indexedNote);
+            modified = true;
+        }
+        schedulePersist();
+    }
+
+    private void remove(IndexedNote indexedNote) {
+        for (String term : indexedNote.terms()) {
+            removePosting(term, indexedNote.id());
+        }
+        notesByName.remove(indexedNote.name());
+        notesById.set(indexedNote.id(), null);
+        freeIds.push(indexedNote.id());
+        modified = true;
+    }
+
+    private void removePosting(String term, int id) {
+        Postings postings = terms.get(term);
+        if (postings != null) {
+            postings.remove(id);
+            if (postings.size == 0) {
+                terms.remove(term);
+                termsById.set(postings.termId, null);
+                termGrams.remove(postings.termId);
+            }
+        }
+    }
+
+    private void clear() {
+        terms.clear();
+        notesByName.clear();
+        notesById.clear();
+        freeIds.clear();
+        termsById.clear();
+        termGrams = new TrigramIndex();
+        directory = null;
+        modified = false;
+    }
+
+    private synchronized void schedulePersist() {
+        if (!modified || persistScheduled) {
+            return;
+        }
+        persistScheduled = true;
+        executor.schedule(this::persist, PERSIST_DELAY_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private synchronized void persist() {
+        persistScheduled = false;
+        if (!modified || directory == null) {
+            return;
+        }
+        File tempFile = new File(indexFile.getParentFile(), INDEX_FILE_NAME + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(INDEX_FILE_MAGIC);
+            out.writeInt(INDEX_FILE_VERSION);
+            out.writeUTF(directory.toString());
+
+            out.writeInt(notesById.size());
+            for (IndexedNote indexedNote : notesById) {
+                if (indexedNote == null) {
+                    out.writeUTF("");
+                    out.writeLong(0);
+                    out.writeLong(0);
+                    out.writeLong(0);
+                    out.writeInt(0);
+                    continue;
+                }
+                out.writeUTF(indexedNote.name());
+                out.writeLong(indexedNote.lastModified());
+                out.writeLong(indexedNote.size());
+                out.writeLong(indexedNote.fingerprint().hash());
+                out.writeInt(indexedNote.fingerprint().length());
+            }
+
+            out.writeInt(terms.size());
+            for (Map.Entry<String, Postings> entry : terms.entrySet()) {
+                Postings postings = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeInt(postings.size);
+                for (int i = 0; i < postings.size; i++) {
+                    out.writeInt(postings.ids[i]);
+                    out.writeInt(postings.offsets[i].length);
+                    for (int offset : postings.offsets[i]) {
+                        out.writeInt(offset);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        try {
+            Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            modified = false;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void load() {
+        if (!indexFile.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_FILE_MAGIC || in.readInt() != INDEX_FILE_VERSION || !directory.toString().equals(in.readUTF())) {
+                return;
+            }
+
+            int noteCount = in.readInt();
+            List<String> names = new ArrayList<>(noteCount);
+            long[] lastModified = new long[noteCount];
+            long[] sizes = new long[noteCount];
+            Fingerprint[] fingerprints = new Fingerprint[noteCount];
+            for (int id = 0; id < noteCount; id++) {
+                names.add(in.readUTF());
+                lastModified[id] = in.readLong();
+                sizes[id] = in.readLong();
+                fingerprints[id] = new Fingerprint(in.readLong(), in.readInt());
+            }
+
+            List<List<String>> noteTerms = new ArrayList<>(noteCount);
+            for (int id = 0; id < noteCount; id++) {
+                noteTerms.add(new ArrayList<>());
+            }
+            int termCount = in.readInt();
+            for (int t = 0; t < termCount; t++) {
+                String term = in.readUTF();
+                Postings postings = getOrCreatePostings(term);
+                int postingCount = in.readInt();
+                for (int p = 0; p < postingCount; p++) {
+                    int id = in.readInt();
+                    int[] offsets = new int[in.readInt()];
+                    for (int o = 0; o < offsets.length; o++) {
+                        offsets[o] = in.readInt();
+                    }
+                    postings.put(id, offsets);
+                    noteTerms.get(id).add(term);
+                }
+            }
+
+            for (int id = 0; id < noteCount; id++) {
+                if (names.get(id).isEmpty()) {
+                    notesById.add(null);
+                    freeIds.push(id);
+                    continue;
+                }
+                IndexedNote indexedNote = new IndexedNote(id, names.get(id), lastModified[id], sizes[id], fingerprints[id], noteTerms.get(id).toArray(new String[0]));
+                notesById.add(indexedNote);
+                notesByName.put(indexedNote.name(), indexedNote);
+            }
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            Path currentDirectory = directory;
+            clear();
+            directory = currentDirectory;
+        }
+    }
+
+    private interface TermConsumer {
+        void accept(String term, int offset);
+    }
+
+    private static void tokenize(CharSequence text, TermConsumer consumer) {
+        int byteOffset = 0;
+        int termStart = -1;
+        int termByteOffset = 0;
+        int length = text.length();
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (termStart < 0) {
+                    termStart = i;
+                    termByteOffset = byteOffset;
+                }
+            } else if (termStart >= 0) {
+                int termLength = i - termStart;
+                if (termLength >= MIN_TERM_LENGTH && termLength <= MAX_TERM_LENGTH) {
+                    consumer.accept(text.subSequence(termStart, i).toString().toLowerCase(), termByteOffset);
+                }
+                termStart = -1;
+            }
+            byteOffset += c < 0x80 ? 1 : c < 0x800 || Character.isSurrogate(c) ? 2 : 3;
+        }
+    }
+}
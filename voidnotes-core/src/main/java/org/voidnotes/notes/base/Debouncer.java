@@ -0,0 +1,59 @@
+package org.voidnotes.notes.base;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+public class Debouncer {
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(Threads.daemonThreadFactory("debouncer"));
+
+    private final long delayMillis;
+    private final Executor executor;
+    private final Runnable task;
+
+    private ScheduledFuture<?> scheduled;
+    private long generation = 0;
+
+    public Debouncer(long delayMillis, Executor executor, Runnable task) {
+        this.delayMillis = delayMillis;
+        this.executor = executor;
+        this.task = task;
+    }
+
+    public synchronized void start() {
+        if (scheduled == null) {
+            schedule();
+        }
+    }
+
+    public synchronized void restart() {
+        stop();
+        schedule();
+    }
+
+    public synchronized void stop() {
+        generation++;
+        if (scheduled != null) {
+            scheduled.cancel(false);
+            scheduled = null;
+        }
+    }
+
+    private void schedule() {
+        long scheduledGeneration = generation;
+        scheduled = SCHEDULER.schedule(() -> executor.execute(() -> run(scheduledGeneration)), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // the executor may run the task after a stop or restart that happened while it was queued
+    private void run(long scheduledGeneration) {
+        synchronized (this) {
+            if (scheduledGeneration != generation) {
+                return;
+            }
+            scheduled = null;
+        }
+        task.run();
+    }
+}
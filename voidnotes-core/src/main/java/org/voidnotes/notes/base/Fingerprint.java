@@ -0,0 +1,83 @@
+package org.voidnotes.notes.base;
+
+public record Fingerprint(long hash, int length) {
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
+    public static Fingerprint of(CharSequence text) {
+        return new Fingerprint(xxHash64(text), text.length());
+    }
+
+    // xxHash64 (seed 0) over the UTF-16LE code units of the text, four chars per 64-bit lane
+    private static long xxHash64(CharSequence text) {
+        int length = text.length();
+        int index = 0;
+        long hash;
+        if (length >= 16) {
+            long v1 = PRIME64_1 + PRIME64_2;
+            long v2 = PRIME64_2;
+            long v3 = 0;
+            long v4 = -PRIME64_1;
+            int limit = length - 16;
+            do {
+                v1 = round(v1, getLong(text, index));
+                v2 = round(v2, getLong(text, index + 4));
+                v3 = round(v3, getLong(text, index + 8));
+                v4 = round(v4, getLong(text, index + 12));
+                index += 16;
+            } while (index <= limit);
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = mergeRound(hash, v1);
+            hash = mergeRound(hash, v2);
+            hash = mergeRound(hash, v3);
+            hash = mergeRound(hash, v4);
+        } else {
+            hash = PRIME64_5;
+        }
+        hash += (long) length * 2;
+
+        while (index + 4 <= length) {
+            hash ^= round(0, getLong(text, index));
+            hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+            index += 4;
+        }
+        if (index + 2 <= length) {
+            long word = (text.charAt(index) | ((long) text.charAt(index + 1) << 16)) & 0xFFFFFFFFL;
+            hash ^= word * PRIME64_1;
+            hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
+            index += 2;
+        }
+        if (index < length) {
+            char c = text.charAt(index);
+            hash ^= (c & 0xFF) * PRIME64_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME64_1;
+            hash ^= (c >>> 8) * PRIME64_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME64_1;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME64_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME64_3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    private static long getLong(CharSequence text, int index) {
+        return text.charAt(index) | ((long) text.charAt(index + 1) << 16) | ((long) text.charAt(index + 2) << 32) | ((long) text.charAt(index + 3) << 48);
+    }
+
+    private static long round(long accumulator, long input) {
+        accumulator += input * PRIME64_2;
+        accumulator = Long.rotateLeft(accumulator, 31);
+        return accumulator * PRIME64_1;
+    }
+
+    private static long mergeRound(long hash, long value) {
+        hash ^= round(0, value);
+        return hash * PRIME64_1 + PRIME64_4;
+    }
+}
@@ -0,0 +1,114 @@
+package org.voidnotes.notes.base;
+
+public class FuzzyMatcher {
+    public static final int NO_MATCH = Integer.MIN_VALUE;
+
+    private static final int SCORE_MATCH = 16;
+    private static final int SCORE_GAP_START = -3;
+    private static final int SCORE_GAP_EXTENSION = -1;
+
+    private static final int BONUS_PATH_SEPARATOR = 10;
+    private static final int BONUS_BOUNDARY = 8;
+    private static final int BONUS_CONSECUTIVE = 5;
+    private static final int BONUS_FIRST_CHAR_MULTIPLIER = 2;
+
+    private int[] positions = new int[16];
+    private int positionCount = 0;
+
+    public int match(char[] text, char[] query) {
+        positionCount = 0;
+        int queryLength = query.length;
+        int textLength = text.length;
+        if (queryLength == 0) {
+            return 0;
+        }
+        if (queryLength > textLength) {
+            return NO_MATCH;
+        }
+
+        int queryIndex = 0;
+        int end = -1;
+        for (int i = 0; i < textLength; i++) {
+            if (text[i] == query[queryIndex] && ++queryIndex == queryLength) {
+                end = i;
+                break;
+            }
+        }
+        if (end < 0) {
+            return NO_MATCH;
+        }
+
+        if (positions.length < queryLength) {
+            positions = new int[queryLength];
+        }
+
+        queryIndex = queryLength - 1;
+        for (int i = end; queryIndex >= 0; i--) {
+            if (text[i] == query[queryIndex]) {
+                positions[queryIndex--] = i;
+            }
+        }
+
+        int score = 0;
+        int runBonus = 0;
+        for (queryIndex = 0; queryIndex < queryLength; queryIndex++) {
+            int position = positions[queryIndex];
+            int bonus = getBonus(text, position);
+            if (queryIndex > 0) {
+                int gap = position - positions[queryIndex - 1] - 1;
+                if (gap == 0) {
+                    runBonus = Math.max(runBonus, Math.max(bonus, BONUS_CONSECUTIVE));
+                    bonus = runBonus;
+                } else {
+                    score += SCORE_GAP_START + (gap - 1) * SCORE_GAP_EXTENSION;
+                    runBonus = bonus;
+                }
+            } else {
+                runBonus = bonus;
+                bonus *= BONUS_FIRST_CHAR_MULTIPLIER;
+            }
+            score += SCORE_MATCH + bonus;
+        }
+        positionCount = queryLength;
+        return score;
+    }
+
+    public int[] getPositions() {
+        int[] result = new int[positionCount];
+        System.arraycopy(positions, 0, result, 0, positionCount);
+        return result;
+    }
+
+    public static boolean isSubsequence(String query, String text) {
+        int queryIndex = 0;
+        for (int i = 0; i < text.length() && queryIndex < query.length(); i++) {
+            if (text.charAt(i) == query.charAt(queryIndex)) {
+                queryIndex++;
+            }
+        }
+        return queryIndex == query.length();
+    }
+
+    // String.toLowerCase may change the length (e.g. for 'İ'), match positions have to stay valid for the original text
+    public static String toLowerCase(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    private static int getBonus(char[] text, int index) {
+        if (index == 0) {
+            return BONUS_BOUNDARY;
+        }
+        char previous = text[index - 1];
+        if (previous == '/' || previous == '\\') {
+            return BONUS_PATH_SEPARATOR;
+        }
+        if (!Character.isLetterOrDigit(previous) && Character.isLetterOrDigit(text[index])) {
+            return BONUS_BOUNDARY;
+        }
+        return 0;
+    }
+}
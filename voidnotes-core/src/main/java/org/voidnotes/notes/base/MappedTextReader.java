@@ -0,0 +1,76 @@
+package org.voidnotes.notes.base;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class MappedTextReader implements Closeable {
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+
+    private final FileChannel channel;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+    private final ByteBuffer input;
+    private final long size;
+
+    private boolean endOfInput;
+    private boolean finished;
+
+    public MappedTextReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        size = channel.size();
+        // mapped files can't be replaced on Windows, read them in chunks instead
+        if (OSUtils.isWindows()) {
+            input = ByteBuffer.allocateDirect(READ_BUFFER_SIZE).flip();
+        } else {
+            input = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            endOfInput = true;
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public String read(int maxChars) throws IOException {
+        if (finished) {
+            return null;
+        }
+        CharBuffer output = CharBuffer.allocate(maxChars);
+        while (true) {
+            CoderResult result = decoder.decode(input, output, endOfInput);
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (result.isOverflow()) {
+                break;
+            }
+            if (endOfInput) {
+                decoder.flush(output);
+                finished = true;
+                break;
+            }
+            input.compact();
+            if (channel.read(input) < 0) {
+                endOfInput = true;
+            }
+            input.flip();
+        }
+        output.flip();
+        return finished && output.length() == 0 ? null : output.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
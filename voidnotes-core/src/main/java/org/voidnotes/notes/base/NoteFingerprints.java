@@ -0,0 +1,21 @@
+package org.voidnotes.notes.base;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class NoteFingerprints {
+    private final Map<Path, Fingerprint> fingerprints = new ConcurrentHashMap<>();
+
+    public Fingerprint get(Path path) {
+        return fingerprints.get(path.toAbsolutePath());
+    }
+
+    public void put(Path path, Fingerprint fingerprint) {
+        fingerprints.put(path.toAbsolutePath(), fingerprint);
+    }
+
+    public boolean isUnchanged(Path path, Fingerprint fingerprint) {
+        return fingerprint.equals(get(path));
+    }
+}
@@ -0,0 +1,523 @@
+package org.voidnotes.notes.base;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+public class NoteIndex {
+    public static final String NOTE_EXTENSION = ".txt";
+    public static final int MAX_DEPTH = 5;
+
+    private static final long RECONCILE_INTERVAL_SECONDS = 60;
+
+    private static final String INDEX_FILE_NAME = "note_index.bin";
+    private static final int INDEX_FILE_MAGIC = 0x564E4E49;
+    private static final int INDEX_FILE_VERSION = 1;
+    private static final Note[] NO_NOTES = new Note[0];
+
+    public record Note(int id, String label, String lcLabel, char[] folded, Path path, long lastModified, long size) {
+    }
+
+    // positions maps a note id to the index of its note in the label sorted array, or -1
+    private record Snapshot(Note[] notes, int[] positions) {
+    }
+
+    private final Map<Path, Note> notes = new HashMap<>();
+    private final Map<WatchKey, Path> watchKeys = new HashMap<>();
+    private final Map<Path, Long> directoryTimes = new HashMap<>();
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+    private final File indexFile;
+
+    private Path directory;
+    private WatchService watchService;
+    private volatile TrigramIndex labelGrams = new TrigramIndex();
+    private int nextId = 0;
+
+    private volatile Snapshot snapshot = new Snapshot(NO_NOTES, new int[0]);
+    private volatile boolean snapshotOutdated = false;
+    private volatile long version = 0;
+    private long savedVersion = -1;
+
+    public NoteIndex(File configDirectory) {
+        indexFile = new File(configDirectory, INDEX_FILE_NAME);
+    }
+
+    public synchronized void open(Path directory) {
+        close();
+        this.directory = directory.toAbsolutePath();
+        try {
+            watchService = this.directory.getFileSystem().newWatchService();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        boolean indexFileLoaded = loadIndexFile();
+        if (!indexFileLoaded) {
+            reconcile();
+        }
+
+        WatchService currentWatchService = watchService;
+        Threads.startDaemonThread("note-index", () -> {
+            if (indexFileLoaded) {
+                validateDirectories();
+                reconcile();
+            }
+            watch(currentWatchService);
+        });
+    }
+
+    public synchronized void close() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            watchService = null;
+        }
+        watchKeys.clear();
+        notes.clear();
+        directoryTimes.clear();
+        labelGrams = new TrigramIndex();
+        nextId = 0;
+        directory = null;
+        changed();
+    }
+
+    public Note[] getNotes() {
+        return getSnapshot().notes();
+    }
+
+    public Note[] getCandidates(String lcQuery) {
+        Snapshot currentSnapshot = getSnapshot();
+        long[] candidates = labelGrams.getCandidates(lcQuery.toCharArray(), false);
+        if (candidates == null) {
+            return currentSnapshot.notes();
+        }
+        int[] positions = new int[Math.min(TrigramIndex.count(candidates), currentSnapshot.notes().length)];
+        int size = 0;
+        for (int word = 0; word < candidates.length && size < positions.length; word++) {
+            long bits = candidates[word];
+            while (bits != 0 && size < positions.length) {
+                int id = (word << 6) + Long.numberOfTrailingZeros(bits);
+                // the trigram index may already know notes that the snapshot doesn't have yet
+                if (id < currentSnapshot.positions().length && currentSnapshot.positions()[id] >= 0) {
+                    positions[size++] = currentSnapshot.positions()[id];
+                }
+                bits &= bits - 1;
+            }
+        }
+        Arrays.sort(positions, 0, size);
+        Note[] result = new Note[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = currentSnapshot.notes()[positions[i]];
+        }
+        return result;
+    }
+
+    private Snapshot getSnapshot() {
+        if (snapshotOutdated) {
+            synchronized (this) {
+                if (snapshotOutdated) {
+                    Note[] newNotes = notes.values().toArray(NO_NOTES);
+                    Arrays.sort(newNotes, Comparator.comparing(Note::label));
+                    int[] positions = new int[nextId];
+                    Arrays.fill(positions, -1);
+                    for (int i = 0; i < newNotes.length; i++) {
+                        positions[newNotes[i].id()] = i;
+                    }
+                    snapshot = new Snapshot(newNotes, positions);
+                    snapshotOutdated = false;
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    public synchronized void update(Path path) {
+        Path absolutePath = path.toAbsolutePath();
+        if (directory == null || !absolutePath.startsWith(directory)) {
+            return;
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(absolutePath, BasicFileAttributes.class);
+            if (!attributes.isDirectory() && isNote(absolutePath) && getDepth(absolutePath) <= MAX_DEPTH && put(absolutePath, attributes)) {
+                changed();
+            }
+        } catch (IOException e) {
+            remove(absolutePath);
+        }
+    }
+
+    public void reconcile() {
+        Path currentDirectory;
+        synchronized (this) {
+            currentDirectory = directory;
+        }
+        if (currentDirectory == null) {
+            return;
+        }
+
+        Map<Path, BasicFileAttributes> foundNotes = new HashMap<>();
+        Map<Path, Long> foundDirectories = new HashMap<>();
+        scan(currentDirectory, currentDirectory, foundNotes, foundDirectories::put);
+
+        synchronized (this) {
+            if (!currentDirectory.equals(directory)) {
+                return;
+            }
+            boolean modified = false;
+            for (Iterator<Note> iterator = notes.values().iterator(); iterator.hasNext(); ) {
+                Note note = iterator.next();
+                if (!foundNotes.containsKey(note.path())) {
+                    labelGrams.remove(note.id());
+                    iterator.remove();
+                    modified = true;
+                }
+            }
+            for (Map.Entry<Path, BasicFileAttributes> entry : foundNotes.entrySet()) {
+                modified |= put(entry.getKey(), entry.getValue());
+            }
+            if (modified) {
+                changed();
+            }
+            directoryTimes.clear();
+            directoryTimes.putAll(foundDirectories);
+            watchKeys.entrySet().removeIf(entry -> !entry.getKey().isValid());
+            Set<Path> watchedDirectories = new HashSet<>(watchKeys.values());
+            for (Path foundDirectory : foundDirectories.keySet()) {
+                if (!watchedDirectories.contains(foundDirectory)) {
+                    register(foundDirectory);
+                }
+            }
+        }
+    }
+
+    private void watch(WatchService currentWatchService) {
+        if (currentWatchService == null) {
+            return;
+        }
+        try {
+            while (true) {
+                WatchKey key = currentWatchService.poll(RECONCILE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+                if (key == null) {
+                    reconcile();
+                    saveIndexFile();
+                } else {
+                    processEvents(key);
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // index has been closed or reopened with another directory
+        }
+    }
+
+    private void processEvents(WatchKey key) {
+        boolean overflow = false;
+        synchronized (this) {
+            Path watchedDirectory = watchKeys.get(key);
+            if (watchedDirectory == null) {
+                key.cancel();
+                return;
+            }
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    overflow = true;
+                    continue;
+                }
+                Path path = watchedDirectory.resolve((Path) event.context());
+                if (event.kind() == ENTRY_DELETE) {
+                    remove(path);
+                } else if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                    if (event.kind() == ENTRY_CREATE) {
+                        addDirectory(path);
+                    }
+                } else if (isNote(path)) {
+                    update(path);
+                }
+            }
+            if (!key.reset()) {
+                watchKeys.remove(key);
+            }
+            try {
+                directoryTimes.put(watchedDirectory, Files.getLastModifiedTime(watchedDirectory).toMillis());
+            } catch (IOException e) {
+                directoryTimes.remove(watchedDirectory);
+            }
+        }
+        if (overflow) {
+            reconcile();
+        }
+    }
+
+    private void addDirectory(Path path) {
+        Map<Path, BasicFileAttributes> foundNotes = new HashMap<>();
+        scan(directory, path, foundNotes, (foundDirectory, lastModified) -> {
+            register(foundDirectory);
+            directoryTimes.put(foundDirectory, lastModified);
+        });
+        boolean modified = false;
+        for (Map.Entry<Path, BasicFileAttributes> entry : foundNotes.entrySet()) {
+            modified |= put(entry.getKey(), entry.getValue());
+        }
+        if (modified) {
+            changed();
+        }
+    }
+
+    private void remove(Path path) {
+        boolean modified = false;
+        for (Iterator<Note> iterator = notes.values().iterator(); iterator.hasNext(); ) {
+            Note note = iterator.next();
+            if (note.path().startsWith(path)) {
+                labelGrams.remove(note.id());
+                iterator.remove();
+                modified = true;
+            }
+        }
+        if (modified) {
+            changed();
+        }
+        directoryTimes.keySet().removeIf(directoryPath -> directoryPath.startsWith(path));
+        watchKeys.entrySet().removeIf(entry -> {
+            if (entry.getValue().startsWith(path)) {
+                entry.getKey().cancel();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void register(Path path) {
+        if (watchService == null || getDepth(path) >= MAX_DEPTH) {
+            return;
+        }
+        try {
+            watchKeys.put(path.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), path);
+        } catch (IOException | ClosedWatchServiceException e) {
+            // directory has been removed in the meantime, reconcile will catch up
+        }
+    }
+
+    private void scan(Path root, Path start, Map<Path, BasicFileAttributes> foundNotes, BiConsumer<Path, Long> directoryConsumer) {
+        int depth = start.equals(root) ? 0 : root.relativize(start).getNameCount();
+        try {
+            Files.walkFileTree(start, EnumSet.noneOf(FileVisitOption.class), MAX_DEPTH - depth, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    directoryConsumer.accept(dir, attrs.lastModifiedTime().toMillis());
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (!attrs.isDirectory() && isNote(file)) {
+                        foundNotes.put(file, attrs);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private boolean put(Path path, BasicFileAttributes attributes) {
+        return put(path, attributes.lastModifiedTime().toMillis(), attributes.size());
+    }
+
+    private boolean put(Path path, long lastModified, long size) {
+        Note note = notes.get(path);
+        if (note != null && note.lastModified() == lastModified && note.size() == size) {
+            return false;
+        }
+        if (note == null) {
+            String label = directory.relativize(path).toString();
+            label = label.substring(0, label.length() - NOTE_EXTENSION.length());
+            String lcLabel = FuzzyMatcher.toLowerCase(label);
+            note = new Note(nextId++, label, lcLabel, lcLabel.toCharArray(), path, lastModified, size);
+            labelGrams.add(note.id(), note.folded());
+        } else {
+            note = new Note(note.id(), note.label(), note.lcLabel(), note.folded(), path, lastModified, size);
+        }
+        notes.put(path, note);
+        return true;
+    }
+
+    private void validateDirectories() {
+        Map<Path, Long> recordedTimes;
+        synchronized (this) {
+            recordedTimes = new HashMap<>(directoryTimes);
+        }
+        for (Map.Entry<Path, Long> entry : recordedTimes.entrySet()) {
+            long lastModified;
+            try {
+                lastModified = Files.getLastModifiedTime(entry.getKey()).toMillis();
+            } catch (IOException e) {
+                lastModified = -1;
+            }
+            if (lastModified != entry.getValue()) {
+                synchronized (this) {
+                    if (directory == null || !entry.getKey().startsWith(directory)) {
+                        return;
+                    }
+                    rescanDirectory(entry.getKey(), lastModified);
+                }
+            }
+        }
+    }
+
+    private void rescanDirectory(Path path, long lastModified) {
+        if (lastModified < 0) {
+            remove(path);
+            return;
+        }
+        boolean modified = false;
+        Set<Path> children = new HashSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
+            for (Path child : stream) {
+                BasicFileAttributes attributes = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                if (attributes.isDirectory()) {
+                    if (!directoryTimes.containsKey(child) && getDepth(child) < MAX_DEPTH) {
+                        addDirectory(child);
+                    }
+                } else if (isNote(child)) {
+                    children.add(child);
+                    modified |= put(child, attributes);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        for (Iterator<Note> iterator = notes.values().iterator(); iterator.hasNext(); ) {
+            Note note = iterator.next();
+            if (path.equals(note.path().getParent()) && !children.contains(note.path())) {
+                labelGrams.remove(note.id());
+                iterator.remove();
+                modified = true;
+            }
+        }
+        directoryTimes.put(path, lastModified);
+        if (modified) {
+            changed();
+        }
+    }
+
+    public synchronized void saveIndexFile() {
+        if (directory == null || savedVersion == version) {
+            return;
+        }
+        File tempFile = new File(indexFile.getParentFile(), INDEX_FILE_NAME + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(INDEX_FILE_MAGIC);
+            out.writeInt(INDEX_FILE_VERSION);
+            writeString(out, directory.toString());
+            out.writeInt(directoryTimes.size());
+            for (Map.Entry<Path, Long> entry : directoryTimes.entrySet()) {
+                writeString(out, directory.relativize(entry.getKey()).toString());
+                out.writeLong(entry.getValue());
+            }
+            out.writeInt(notes.size());
+            for (Note note : notes.values()) {
+                writeString(out, directory.relativize(note.path()).toString());
+                out.writeLong(note.lastModified());
+                out.writeLong(note.size());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        try {
+            Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            savedVersion = version;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private boolean loadIndexFile() {
+        if (!indexFile.isFile()) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer;
+            if (OSUtils.isWindows()) {
+                // Windows cannot replace a file while it is mapped, which would block saveIndexFile()
+                buffer = ByteBuffer.wrap(Files.readAllBytes(indexFile.toPath()));
+            } else {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (buffer.getInt() != INDEX_FILE_MAGIC || buffer.getInt() != INDEX_FILE_VERSION || !directory.toString().equals(readString(buffer))) {
+                return false;
+            }
+
+            int directoryCount = buffer.getInt();
+            for (int i = 0; i < directoryCount; i++) {
+                Path path = directory.resolve(readString(buffer));
+                directoryTimes.put(path, buffer.getLong());
+            }
+            int noteCount = buffer.getInt();
+            for (int i = 0; i < noteCount; i++) {
+                Path path = directory.resolve(readString(buffer));
+                put(path, buffer.getLong(), buffer.getLong());
+            }
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            notes.clear();
+            directoryTimes.clear();
+            labelGrams = new TrigramIndex();
+            return false;
+        }
+        changed();
+        savedVersion = version;
+        return true;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int getDepth(Path path) {
+        return path.equals(directory) ? 0 : directory.relativize(path).getNameCount();
+    }
+
+    private boolean isNote(Path path) {
+        return path.getFileName() != null && path.getFileName().toString().toLowerCase().endsWith(NOTE_EXTENSION);
+    }
+
+    private void changed() {
+        version++;
+        snapshotOutdated = true;
+        changeListeners.forEach(Runnable::run);
+    }
+}
@@ -0,0 +1,144 @@
+package org.voidnotes.notes.base;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+public class NotePreviewer {
+    private static final int MAX_LINES = 12;
+    private static final int CONTEXT_LINES = 2;
+    private static final int HEAD_BYTES = 4 * 1024;
+    private static final int CONTEXT_BYTES = 1024;
+    private static final int PREVIEW_CACHE_SIZE = 64;
+
+    private record Key(Path path, long size, long lastModified, long offset) {
+    }
+
+    private final Executor resultExecutor;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(Threads.daemonThreadFactory("note-previewer"));
+    private final AtomicLong previewGeneration = new AtomicLong();
+
+    private final Map<Key, String> previews = new LinkedHashMap<>(PREVIEW_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+            return size() > PREVIEW_CACHE_SIZE;
+        }
+    };
+
+    public NotePreviewer(Executor resultExecutor) {
+        this.resultExecutor = resultExecutor;
+    }
+
+    public void preview(Path path, long offset, Consumer<String> previewConsumer) {
+        long generation = previewGeneration.incrementAndGet();
+        executor.execute(() -> {
+            if (generation != previewGeneration.get()) {
+                return;
+            }
+            String preview = getPreview(path, offset);
+            resultExecutor.execute(() -> {
+                if (generation == previewGeneration.get()) {
+                    previewConsumer.accept(preview);
+                }
+            });
+        });
+    }
+
+    public void cancel() {
+        previewGeneration.incrementAndGet();
+    }
+
+    private String getPreview(Path path, long offset) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            Key key = new Key(path.toAbsolutePath(), attributes.size(), attributes.lastModifiedTime().toMillis(), offset);
+            String preview = previews.get(key);
+            if (preview == null) {
+                preview = extractSnippet(path, attributes.size(), offset);
+                previews.put(key, preview);
+            }
+            return preview;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // reads only the bytes around the offset, a negative offset previews the beginning of the note
+    // the window is small, a positional read is cheap and unlike a mapping doesn't keep the file from being replaced on Windows
+    private static String extractSnippet(Path path, long size, long offset) throws IOException {
+        long hit = Math.min(Math.max(offset, 0), size);
+        long regionStart = offset < 0 ? 0 : Math.max(0, hit - CONTEXT_BYTES);
+        long regionEnd = offset < 0 ? Math.min(size, HEAD_BYTES) : Math.min(size, hit + HEAD_BYTES - CONTEXT_BYTES);
+        if (regionEnd <= regionStart) {
+            return "";
+        }
+
+        ByteBuffer region = ByteBuffer.allocate((int) (regionEnd - regionStart));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (region.hasRemaining()) {
+                if (channel.read(region, regionStart + region.position()) < 0) {
+                    break;
+                }
+            }
+        }
+        region.flip();
+        // the note may have shrunk since its size was read
+        regionEnd = regionStart + region.limit();
+        int hitIndex = (int) (Math.min(hit, regionEnd) - regionStart);
+
+        int start = hitIndex;
+        int newlines = 0;
+        while (start > 0 && (region.get(start - 1) != '\n' || ++newlines <= CONTEXT_LINES)) {
+            start--;
+        }
+        if (start == 0 && regionStart > 0) {
+            start = skipContinuationBytes(region, 0, hitIndex);
+        }
+
+        int end = start;
+        int lines = 0;
+        while (end < region.limit() && lines < MAX_LINES) {
+            if (region.get(end++) == '\n') {
+                lines++;
+            }
+        }
+        if (end == region.limit() && regionEnd < size) {
+            end = trimIncompleteChar(region, start, end);
+        }
+
+        ByteBuffer snippet = region.slice(start, end - start);
+        return StandardCharsets.UTF_8.decode(snippet).toString().stripTrailing();
+    }
+
+    private static int trimIncompleteChar(ByteBuffer buffer, int start, int end) {
+        int lead = end;
+        while (lead > start && end - lead < 4 && (buffer.get(lead - 1) & 0xC0) == 0x80) {
+            lead--;
+        }
+        if (lead == start) {
+            return end;
+        }
+        int b = buffer.get(lead - 1) & 0xFF;
+        int charLength = b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC0 ? 2 : 1;
+        return end - (lead - 1) < charLength ? lead - 1 : end;
+    }
+
+    private static int skipContinuationBytes(ByteBuffer buffer, int index, int limit) {
+        while (index < limit && (buffer.get(index) & 0xC0) == 0x80) {
+            index++;
+        }
+        return index;
+    }
+}
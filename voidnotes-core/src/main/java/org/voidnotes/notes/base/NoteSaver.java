@@ -0,0 +1,261 @@
+package org.voidnotes.notes.base;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+public class NoteSaver {
+    private static final int SAVE_DELAY_MILLIS = 300;
+
+    public record Snapshot(TextSnapshot text, int dirtyStart) {
+    }
+
+    public interface SaveListener {
+        void noteSaved(Path path, CharSequence text, Fingerprint fingerprint);
+    }
+
+    private record FileState(long size, long lastModified) {
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(Threads.daemonThreadFactory("note-saver"));
+    private final Map<Path, Snapshot> pendingWrites = new LinkedHashMap<>();
+    // read on the EDT to validate cached editor buffers, removed while a note is being written
+    private final Map<Path, FileState> writtenFiles = new ConcurrentHashMap<>();
+    private final Set<Path> writingFiles = ConcurrentHashMap.newKeySet();
+    private final NoteFingerprints fingerprints;
+    private final SaveListener saveListener;
+    private final Debouncer saveDebouncer;
+
+    private Path path;
+    private Supplier<Snapshot> snapshotSupplier;
+
+    public NoteSaver(NoteFingerprints fingerprints, SaveListener saveListener, Executor flushExecutor) {
+        this.fingerprints = fingerprints;
+        this.saveListener = saveListener;
+        saveDebouncer = new Debouncer(SAVE_DELAY_MILLIS, flushExecutor, this::flush);
+    }
+
+    public void fileOpened(Path path, CharSequence text) {
+        executor.execute(() -> {
+            fingerprints.put(path, Fingerprint.of(text));
+            FileState state = getFileState(path);
+            if (state != null) {
+                writtenFiles.put(path, state);
+            } else {
+                writtenFiles.remove(path);
+            }
+        });
+    }
+
+    public void contentChanged(Path path, Supplier<Snapshot> snapshotSupplier) {
+        if (this.path != null && !this.path.equals(path)) {
+            flush();
+        }
+        this.path = path;
+        this.snapshotSupplier = snapshotSupplier;
+        saveDebouncer.restart();
+    }
+
+    public void flush() {
+        saveDebouncer.stop();
+        if (path == null) {
+            return;
+        }
+
+        Path path = this.path;
+        Snapshot snapshot = snapshotSupplier.get();
+        this.path = null;
+        this.snapshotSupplier = null;
+
+        synchronized (pendingWrites) {
+            boolean scheduled = !pendingWrites.isEmpty();
+            Snapshot pending = pendingWrites.get(path);
+            if (pending != null) {
+                snapshot = new Snapshot(snapshot.text(), Math.min(snapshot.dirtyStart(), pending.dirtyStart()));
+            }
+            pendingWrites.put(path, snapshot);
+            if (!scheduled) {
+                executor.execute(this::writePending);
+            }
+        }
+    }
+
+    public void flushAndWait() {
+        flush();
+        try {
+            executor.submit(this::writePending).get();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    // appends after any pending write of the same note, so the file never loses either of them
+    public void appendLine(Path path, String line) {
+        flush();
+        writingFiles.add(path);
+        executor.execute(() -> {
+            try {
+                String text = Files.exists(path) ? new String(Files.readAllBytes(path), StandardCharsets.UTF_8) : "";
+                String appended = (text.isEmpty() || text.endsWith("\n") ? "" : "\n") + line + "\n";
+                Files.writeString(path, appended, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                text += appended;
+                Fingerprint fingerprint = Fingerprint.of(text);
+                fingerprints.put(path, fingerprint);
+                writtenFiles.remove(path);
+                saveListener.noteSaved(path, text, fingerprint);
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                writingFiles.remove(path);
+            }
+        });
+    }
+
+    // waits only if this note still has a write queued or running
+    public void flushAndWait(Path path) {
+        flush();
+        boolean pending;
+        synchronized (pendingWrites) {
+            pending = pendingWrites.containsKey(path) || writingFiles.contains(path);
+        }
+        if (pending) {
+            try {
+                executor.submit(() -> {
+                }).get();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public boolean isFileUnchanged(Path path) {
+        FileState written = writtenFiles.get(path);
+        return written != null && written.equals(getFileState(path));
+    }
+
+    private void writePending() {
+        Map<Path, Snapshot> writes;
+        synchronized (pendingWrites) {
+            writes = new LinkedHashMap<>(pendingWrites);
+            pendingWrites.clear();
+            writingFiles.addAll(writes.keySet());
+        }
+        writes.forEach((path, snapshot) -> {
+            try {
+                write(path, snapshot);
+            } finally {
+                writingFiles.remove(path);
+            }
+        });
+    }
+
+    private void write(Path path, Snapshot snapshot) {
+        TextSnapshot text = snapshot.text();
+        Fingerprint fingerprint = Fingerprint.of(text);
+        if (fingerprints.isUnchanged(path, fingerprint)) {
+            return;
+        }
+
+        int dirtyStart = Math.min(snapshot.dirtyStart(), text.length());
+        if (dirtyStart > 0 && Character.isHighSurrogate(text.charAt(dirtyStart - 1))) {
+            dirtyStart--;
+        }
+        FileState written = writtenFiles.remove(path);
+        try {
+            if (dirtyStart > 0 && text.length() - dirtyStart <= text.length() / 2 && written != null && written.equals(getFileState(path))) {
+                writeTail(path, text, dirtyStart);
+            } else {
+                writeFile(path, text);
+            }
+            FileState state = getFileState(path);
+            if (state != null) {
+                writtenFiles.put(path, state);
+            }
+        } catch (IOException e) {
+            // the old fingerprint stays, so the next save of the same text is retried
+            e.printStackTrace();
+            return;
+        }
+        fingerprints.put(path, fingerprint);
+        saveListener.noteSaved(path, text, fingerprint);
+    }
+
+    private static void writeTail(Path path, TextSnapshot text, int dirtyStart) throws IOException {
+        long offset = getUtf8Length(text, dirtyStart);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(offset);
+            channel.position(offset);
+            Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+            text.write(writer, dirtyStart);
+            writer.flush();
+        }
+    }
+
+    // replaces the file a symlinked note points to, and keeps its permissions instead of the temp file's 0600
+    private static void writeFile(Path path, TextSnapshot text) throws IOException {
+        Path target = Files.exists(path) ? path.toRealPath() : path;
+        Path tempFile = Files.createTempFile(target.getParent(), "." + target.getFileName(), ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(tempFile)) {
+                text.write(writer, 0);
+            }
+            if (Files.exists(target)) {
+                try {
+                    Files.setPosixFilePermissions(tempFile, Files.getPosixFilePermissions(target));
+                } catch (UnsupportedOperationException ignored) {
+                }
+            }
+            try {
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static long getUtf8Length(CharSequence text, int end) {
+        long length = 0;
+        for (int i = 0; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static FileState getFileState(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new FileState(attributes.size(), attributes.lastModifiedTime().toMillis());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -7,10 +7,17 @@ public class Objects {
 
     public static final String CMD_DIR = "/dir";
     public static final String CMD_FILES = "/files";
+    public static final String CMD_STARTUP = "/startup";
 
     public static final String CMD_PREFIX_DARK_MODE = "/dark ";
     public static final String CMD_PREFIX_ALWAYS_ON_TOP = "/top ";
     public static final String CMD_PREFIX_TAB_SIZE = "/tab ";
+    public static final String CMD_PREFIX_PREVIEW = "/preview ";
+
+    public static final String CONTENT_SEARCH_PREFIX = "?";
+
+    public static final String LAUNCH_OPEN = "open";
+    public static final String LAUNCH_APPEND = "append";
 
     public static final String ARG_ON = "on";
     public static final String ARG_OFF = "off";
@@ -24,8 +31,16 @@ public class Objects {
         DARK_MODE,
         ALWAYS_ON_TOP,
         TAB_SIZE,
+        PREVIEW,
     }
 
-    public record SearchItem(SearchItemType type, String label, String commandArgument, Path path) {
+    public record SearchItem(SearchItemType type, String label, String commandArgument, Path path, int[] matchPositions, int contentOffset) {
+        public SearchItem(SearchItemType type, String label, String commandArgument, Path path) {
+            this(type, label, commandArgument, path, null, -1);
+        }
+
+        public SearchItem(SearchItemType type, String label, String commandArgument, Path path, int[] matchPositions) {
+            this(type, label, commandArgument, path, matchPositions, -1);
+        }
     }
 }
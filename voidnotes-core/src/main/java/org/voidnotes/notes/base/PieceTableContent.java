@@ -0,0 +1,532 @@
+package org.voidnotes.notes.base;
+
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.UndoableEdit;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class PieceTableContent implements AbstractDocument.Content {
+    private static final int ADD_BUFFER_SIZE = 64 * 1024;
+
+    static final class Piece {
+        final char[] buffer;
+        final int start;
+        final int length;
+        final int totalLength;
+        final int priority;
+        final Piece left;
+        final Piece right;
+
+        Piece(char[] buffer, int start, int length, int priority, Piece left, Piece right) {
+            this.buffer = buffer;
+            this.start = start;
+            this.length = length;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.totalLength = length + totalLength(left) + totalLength(right);
+        }
+
+        private Piece with(Piece left, Piece right) {
+            return new Piece(buffer, start, length, priority, left, right);
+        }
+    }
+
+    private static final class Mark extends WeakReference<MarkPosition> {
+        private int offset;
+        private boolean assignPending;
+        private int pending;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private Mark left;
+        private Mark right;
+        private Mark parent;
+
+        private Mark(MarkPosition position, int offset, ReferenceQueue<MarkPosition> queue) {
+            super(position, queue);
+            this.offset = offset;
+        }
+    }
+
+    private final class MarkPosition implements Position {
+        private final Mark mark;
+
+        private MarkPosition(int offset) {
+            mark = new Mark(this, offset, collectedMarks);
+        }
+
+        @Override
+        public int getOffset() {
+            return PieceTableContent.this.getOffset(mark);
+        }
+
+        @Override
+        public String toString() {
+            return Integer.toString(getOffset());
+        }
+    }
+
+    private record MarkOffset(Mark mark, int relativeOffset) {
+    }
+
+    private final ReferenceQueue<MarkPosition> collectedMarks = new ReferenceQueue<>();
+    private Piece root;
+    private Mark markRoot;
+    private char[] addBuffer = new char[ADD_BUFFER_SIZE];
+    private int addLength = 0;
+
+    public PieceTableContent() {
+        root = newPiece(new char[]{'\n'}, 0, 1);
+    }
+
+    @Override
+    public synchronized Position createPosition(int offset) throws BadLocationException {
+        if (offset < 0 || offset > length()) {
+            throw new BadLocationException("Invalid position", offset);
+        }
+        removeCollectedMarks();
+        MarkPosition position = new MarkPosition(offset);
+        Mark[] parts = splitMarks(markRoot, offset);
+        markRoot = mergeMarks(mergeMarks(parts[0], position.mark), parts[1]);
+        markRoot.parent = null;
+        return position;
+    }
+
+    @Override
+    public synchronized int length() {
+        return root.totalLength;
+    }
+
+    @Override
+    public synchronized UndoableEdit insertString(int where, String str) throws BadLocationException {
+        if (where < 0 || where >= length()) {
+            throw new BadLocationException("Invalid insert", where);
+        }
+        insert(where, str);
+        return new InsertEdit(where, str.length());
+    }
+
+    @Override
+    public synchronized UndoableEdit remove(int where, int nitems) throws BadLocationException {
+        if (where < 0 || nitems < 0 || where + nitems >= length()) {
+            throw new BadLocationException("Invalid remove", where + nitems);
+        }
+        List<MarkOffset> marks = getMarksInRange(where, nitems);
+        return new RemoveEdit(where, delete(where, nitems), marks);
+    }
+
+    @Override
+    public synchronized String getString(int where, int len) throws BadLocationException {
+        checkRange(where, len);
+        char[] chars = new char[len];
+        copy(root, where, where + len, chars, 0);
+        return new String(chars);
+    }
+
+    @Override
+    public synchronized void getChars(int where, int len, Segment txt) throws BadLocationException {
+        checkRange(where, len);
+        Piece piece = root;
+        int offset = where;
+        while (piece != null) {
+            int leftLength = totalLength(piece.left);
+            if (offset < leftLength) {
+                piece = piece.left;
+            } else if (offset >= leftLength + piece.length && piece.right != null) {
+                offset -= leftLength + piece.length;
+                piece = piece.right;
+            } else {
+                offset -= leftLength;
+                break;
+            }
+        }
+        if (piece != null && (len <= piece.length - offset || txt.isPartialReturn())) {
+            txt.array = piece.buffer;
+            txt.offset = piece.start + offset;
+            txt.count = Math.min(len, piece.length - offset);
+            return;
+        }
+        char[] chars = new char[len];
+        copy(root, where, where + len, chars, 0);
+        txt.array = chars;
+        txt.offset = 0;
+        txt.count = len;
+    }
+
+    public synchronized TextSnapshot getSnapshot() {
+        return new TextSnapshot(root, root.totalLength - 1);
+    }
+
+    private void checkRange(int where, int len) throws BadLocationException {
+        if (where < 0 || len < 0 || where + len > length()) {
+            throw new BadLocationException("Invalid range", where + len);
+        }
+    }
+
+    private void insert(int where, String str) {
+        if (str.isEmpty()) {
+            return;
+        }
+        Piece[] parts = split(root, where);
+        Piece left;
+        if (str.length() <= addBuffer.length - addLength) {
+            int start = addLength;
+            str.getChars(0, str.length(), addBuffer, start);
+            addLength += str.length();
+            left = extendLast(parts[0], addBuffer, start, str.length());
+            if (left == null) {
+                left = merge(parts[0], newPiece(addBuffer, start, str.length()));
+            }
+        } else if (str.length() < ADD_BUFFER_SIZE / 4) {
+            addBuffer = new char[ADD_BUFFER_SIZE];
+            str.getChars(0, str.length(), addBuffer, 0);
+            addLength = str.length();
+            left = merge(parts[0], newPiece(addBuffer, 0, str.length()));
+        } else {
+            left = merge(parts[0], newPiece(str.toCharArray(), 0, str.length()));
+        }
+        root = merge(left, parts[1]);
+        shiftMarksForInsert(where, str.length());
+    }
+
+    private void insert(int where, Piece pieces) {
+        Piece[] parts = split(root, where);
+        root = merge(merge(parts[0], pieces), parts[1]);
+        shiftMarksForInsert(where, totalLength(pieces));
+    }
+
+    private void shiftMarksForInsert(int where, int length) {
+        removeCollectedMarks();
+        Mark[] marks = splitMarks(markRoot, where == 0 ? 1 : where);
+        applyMarks(marks[1], false, length);
+        markRoot = mergeMarks(marks[0], marks[1]);
+        if (markRoot != null) {
+            markRoot.parent = null;
+        }
+    }
+
+    private Piece delete(int where, int length) {
+        if (length == 0) {
+            return null;
+        }
+        removeCollectedMarks();
+        Piece[] parts = split(root, where);
+        Piece[] rest = split(parts[1], length);
+        root = merge(parts[0], rest[1]);
+
+        Mark[] marks = splitMarks(markRoot, where);
+        Mark[] removed = splitMarks(marks[1], where + length);
+        applyMarks(removed[0], true, where);
+        applyMarks(removed[1], false, -length);
+        markRoot = mergeMarks(marks[0], mergeMarks(removed[0], removed[1]));
+        if (markRoot != null) {
+            markRoot.parent = null;
+        }
+        return rest[0];
+    }
+
+    private static int totalLength(Piece piece) {
+        return piece == null ? 0 : piece.totalLength;
+    }
+
+    private static Piece newPiece(char[] buffer, int start, int length) {
+        return new Piece(buffer, start, length, ThreadLocalRandom.current().nextInt(), null, null);
+    }
+
+    private static Piece[] split(Piece piece, int offset) {
+        if (piece == null) {
+            return new Piece[2];
+        }
+        int leftLength = totalLength(piece.left);
+        if (offset <= leftLength) {
+            Piece[] parts = split(piece.left, offset);
+            parts[1] = piece.with(parts[1], piece.right);
+            return parts;
+        }
+        if (offset >= leftLength + piece.length) {
+            Piece[] parts = split(piece.right, offset - leftLength - piece.length);
+            parts[0] = piece.with(piece.left, parts[0]);
+            return parts;
+        }
+        int cut = offset - leftLength;
+        Piece head = new Piece(piece.buffer, piece.start, cut, piece.priority, piece.left, null);
+        Piece tail = new Piece(piece.buffer, piece.start + cut, piece.length - cut, piece.priority, null, piece.right);
+        return new Piece[]{head, tail};
+    }
+
+    private static Piece merge(Piece left, Piece right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority >= right.priority) {
+            return left.with(left.left, merge(left.right, right));
+        }
+        return right.with(merge(left, right.left), right.right);
+    }
+
+    private static Piece extendLast(Piece piece, char[] buffer, int start, int length) {
+        if (piece == null) {
+            return null;
+        }
+        if (piece.right != null) {
+            Piece right = extendLast(piece.right, buffer, start, length);
+            return right == null ? null : piece.with(piece.left, right);
+        }
+        if (piece.buffer != buffer || piece.start + piece.length != start) {
+            return null;
+        }
+        return new Piece(buffer, piece.start, piece.length + length, piece.priority, piece.left, null);
+    }
+
+    static int copy(Piece piece, int from, int to, char[] target, int targetOffset) {
+        if (piece == null || from >= to) {
+            return targetOffset;
+        }
+        int leftLength = totalLength(piece.left);
+        if (from < leftLength) {
+            targetOffset = copy(piece.left, from, Math.min(to, leftLength), target, targetOffset);
+        }
+        int pieceFrom = Math.max(from - leftLength, 0);
+        int pieceTo = Math.min(to - leftLength, piece.length);
+        if (pieceFrom < pieceTo) {
+            System.arraycopy(piece.buffer, piece.start + pieceFrom, target, targetOffset, pieceTo - pieceFrom);
+            targetOffset += pieceTo - pieceFrom;
+        }
+        int rightStart = leftLength + piece.length;
+        if (to > rightStart) {
+            targetOffset = copy(piece.right, Math.max(from - rightStart, 0), to - rightStart, target, targetOffset);
+        }
+        return targetOffset;
+    }
+
+    private int getOffset(Mark mark) {
+        synchronized (this) {
+            int offset = mark.offset;
+            for (Mark ancestor = mark.parent; ancestor != null; ancestor = ancestor.parent) {
+                offset = ancestor.assignPending ? ancestor.pending : offset + ancestor.pending;
+            }
+            return offset;
+        }
+    }
+
+    private static void applyMarks(Mark mark, boolean assign, int value) {
+        if (mark == null) {
+            return;
+        }
+        mark.offset = assign ? value : mark.offset + value;
+        if (assign) {
+            mark.assignPending = true;
+            mark.pending = value;
+        } else {
+            mark.pending += value;
+        }
+    }
+
+    private static void pushDown(Mark mark) {
+        if (mark.assignPending || mark.pending != 0) {
+            applyMarks(mark.left, mark.assignPending, mark.pending);
+            applyMarks(mark.right, mark.assignPending, mark.pending);
+            mark.assignPending = false;
+            mark.pending = 0;
+        }
+    }
+
+    private static void setLeft(Mark mark, Mark left) {
+        mark.left = left;
+        if (left != null) {
+            left.parent = mark;
+        }
+    }
+
+    private static void setRight(Mark mark, Mark right) {
+        mark.right = right;
+        if (right != null) {
+            right.parent = mark;
+        }
+    }
+
+    private static Mark[] splitMarks(Mark mark, int offset) {
+        if (mark == null) {
+            return new Mark[2];
+        }
+        pushDown(mark);
+        if (mark.offset < offset) {
+            Mark[] parts = splitMarks(mark.right, offset);
+            setRight(mark, parts[0]);
+            mark.parent = null;
+            parts[0] = mark;
+            return parts;
+        }
+        Mark[] parts = splitMarks(mark.left, offset);
+        setLeft(mark, parts[1]);
+        mark.parent = null;
+        parts[1] = mark;
+        return parts;
+    }
+
+    private static Mark mergeMarks(Mark left, Mark right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority >= right.priority) {
+            pushDown(left);
+            setRight(left, mergeMarks(left.right, right));
+            return left;
+        }
+        pushDown(right);
+        setLeft(right, mergeMarks(left, right.left));
+        return right;
+    }
+
+    private void removeMark(Mark mark) {
+        List<Mark> path = new ArrayList<>();
+        for (Mark ancestor = mark.parent; ancestor != null; ancestor = ancestor.parent) {
+            path.add(ancestor);
+        }
+        if (path.isEmpty() && markRoot != mark) {
+            return;
+        }
+        for (int i = path.size() - 1; i >= 0; i--) {
+            pushDown(path.get(i));
+        }
+        pushDown(mark);
+
+        Mark replacement = mergeMarks(mark.left, mark.right);
+        Mark parent = mark.parent;
+        if (parent == null) {
+            markRoot = replacement;
+            if (replacement != null) {
+                replacement.parent = null;
+            }
+        } else if (parent.left == mark) {
+            setLeft(parent, replacement);
+        } else {
+            setRight(parent, replacement);
+        }
+        mark.left = null;
+        mark.right = null;
+        mark.parent = null;
+    }
+
+    private void removeCollectedMarks() {
+        Object collected;
+        while ((collected = collectedMarks.poll()) != null) {
+            removeMark((Mark) collected);
+        }
+    }
+
+    private List<MarkOffset> getMarksInRange(int where, int length) {
+        List<MarkOffset> marks = new ArrayList<>();
+        Mark[] parts = splitMarks(markRoot, where);
+        Mark[] range = splitMarks(parts[1], where + length + 1);
+        collectMarks(range[0], where, marks);
+        markRoot = mergeMarks(parts[0], mergeMarks(range[0], range[1]));
+        if (markRoot != null) {
+            markRoot.parent = null;
+        }
+        return marks;
+    }
+
+    private static void collectMarks(Mark mark, int where, List<MarkOffset> marks) {
+        if (mark == null) {
+            return;
+        }
+        pushDown(mark);
+        collectMarks(mark.left, where, marks);
+        if (mark.get() != null) {
+            marks.add(new MarkOffset(mark, mark.offset - where));
+        }
+        collectMarks(mark.right, where, marks);
+    }
+
+    private void restoreMarks(List<MarkOffset> marks, int where) {
+        for (MarkOffset markOffset : marks) {
+            Mark mark = markOffset.mark();
+            if (mark.get() == null || (mark.parent == null && markRoot != mark)) {
+                continue;
+            }
+            removeMark(mark);
+            mark.offset = where + markOffset.relativeOffset();
+            mark.assignPending = false;
+            mark.pending = 0;
+            Mark[] parts = splitMarks(markRoot, mark.offset);
+            markRoot = mergeMarks(mergeMarks(parts[0], mark), parts[1]);
+            markRoot.parent = null;
+        }
+    }
+
+    private class InsertEdit extends AbstractUndoableEdit {
+        private final int offset;
+        private final int length;
+        private Piece pieces;
+        private List<MarkOffset> marks;
+
+        private InsertEdit(int offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public void undo() throws CannotUndoException {
+            super.undo();
+            synchronized (PieceTableContent.this) {
+                marks = getMarksInRange(offset, length);
+                pieces = delete(offset, length);
+            }
+        }
+
+        @Override
+        public void redo() throws CannotRedoException {
+            super.redo();
+            synchronized (PieceTableContent.this) {
+                insert(offset, pieces);
+                restoreMarks(marks, offset);
+                pieces = null;
+                marks = null;
+            }
+        }
+    }
+
+    private class RemoveEdit extends AbstractUndoableEdit {
+        private final int offset;
+        private final Piece pieces;
+        private final List<MarkOffset> marks;
+
+        private RemoveEdit(int offset, Piece pieces, List<MarkOffset> marks) {
+            this.offset = offset;
+            this.pieces = pieces;
+            this.marks = marks;
+        }
+
+        @Override
+        public void undo() throws CannotUndoException {
+            super.undo();
+            synchronized (PieceTableContent.this) {
+                insert(offset, pieces);
+                restoreMarks(marks, offset);
+            }
+        }
+
+        @Override
+        public void redo() throws CannotRedoException {
+            super.redo();
+            synchronized (PieceTableContent.this) {
+                delete(offset, totalLength(pieces));
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.voidnotes.notes.base;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class SearchResult {
+    public static final int PAGE_SIZE = 50;
+
+    public static final SearchResult EMPTY = new SearchResult(Collections.emptyList());
+
+    private final List<Objects.SearchItem> items;
+    private final NoteIndex.Note[] notes;
+    private final int[] scores;
+    private final char[] query;
+    private final FuzzyMatcher matcher = new FuzzyMatcher();
+
+    private long lastKey = Long.MIN_VALUE;
+    private int remaining;
+
+    public SearchResult(List<Objects.SearchItem> items) {
+        this.items = items;
+        this.notes = null;
+        this.scores = null;
+        this.query = null;
+    }
+
+    public SearchResult(Objects.SearchItem firstItem, NoteIndex.Note[] notes, int[] scores, String lcQuery) {
+        this.items = new ArrayList<>(Math.min(notes.length, PAGE_SIZE) + 1);
+        this.notes = notes;
+        this.scores = scores;
+        this.query = lcQuery.toCharArray();
+        this.remaining = notes.length;
+        if (firstItem != null) {
+            items.add(firstItem);
+        }
+        loadMore();
+    }
+
+    public List<Objects.SearchItem> getItems() {
+        return items;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public boolean hasMore() {
+        return remaining > 0;
+    }
+
+    public List<Objects.SearchItem> loadMore() {
+        if (remaining == 0) {
+            return Collections.emptyList();
+        }
+
+        int pageSize = Math.min(PAGE_SIZE, remaining);
+        long[] heap = new long[pageSize];
+        int heapSize = 0;
+        for (int i = 0; i < notes.length; i++) {
+            long key = getKey(i);
+            if (key <= lastKey) {
+                continue;
+            }
+            if (heapSize < pageSize) {
+                heap[heapSize] = key;
+                siftUp(heap, heapSize++);
+            } else if (key < heap[0]) {
+                heap[0] = key;
+                siftDown(heap, heapSize);
+            }
+        }
+
+        Objects.SearchItem[] page = new Objects.SearchItem[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            long key = heap[0];
+            heap[0] = heap[i];
+            siftDown(heap, i);
+            if (i == heapSize - 1) {
+                lastKey = key;
+            }
+            NoteIndex.Note note = notes[(int) key];
+            matcher.match(note.folded(), query);
+            page[i] = new Objects.SearchItem(Objects.SearchItemType.OPEN_NOTE, note.label(), null, note.path(), matcher.getPositions());
+        }
+        remaining -= heapSize;
+
+        List<Objects.SearchItem> pageItems = List.of(page);
+        items.addAll(pageItems);
+        return pageItems;
+    }
+
+    private long getKey(int index) {
+        return ((long) -scores[index] << 32) | index;
+    }
+
+    private static void siftUp(long[] heap, int index) {
+        long key = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] >= key) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = key;
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        int index = 0;
+        long key = heap[0];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] > heap[child]) {
+                child++;
+            }
+            if (heap[child] <= key) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = key;
+    }
+}
@@ -0,0 +1,273 @@
+package org.voidnotes.notes.base;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+public class SearchService {
+    private static final Objects.SearchItem SI_CHOOSE_DIR = new Objects.SearchItem(Objects.SearchItemType.CHOOSE_DIR, Objects.CMD_DIR + " - choose notes base directory", null, null);
+    private static final Objects.SearchItem SI_FILE_EXPLORER = new Objects.SearchItem(Objects.SearchItemType.START_FILE_EXPLORER, Objects.CMD_FILES + " - open system file manager", null, null);
+
+    private static final Objects.SearchItem SI_DARK_MODE_INV = new Objects.SearchItem(Objects.SearchItemType.INVALID, Objects.CMD_PREFIX_DARK_MODE + "[on/off] - enable/disable dark mode", null, null);
+    private static final Objects.SearchItem SI_DARK_MODE_ON = new Objects.SearchItem(Objects.SearchItemType.DARK_MODE, Objects.CMD_PREFIX_DARK_MODE + "on - enable dark mode", Objects.ARG_ON, null);
+    private static final Objects.SearchItem SI_DARK_MODE_OFF = new Objects.SearchItem(Objects.SearchItemType.DARK_MODE, Objects.CMD_PREFIX_DARK_MODE + "off - disable dark mode", Objects.ARG_OFF, null);
+
+    private static final Objects.SearchItem SI_ALWAYS_ON_TOP_INV = new Objects.SearchItem(Objects.SearchItemType.INVALID, Objects.CMD_PREFIX_ALWAYS_ON_TOP + "[on/off] - enable/disable always on top mode", null, null);
+    private static final Objects.SearchItem SI_ALWAYS_ON_TOP_ON = new Objects.SearchItem(Objects.SearchItemType.ALWAYS_ON_TOP, Objects.CMD_PREFIX_ALWAYS_ON_TOP + "on - enable always on top mode", Objects.ARG_ON, null);
+    private static final Objects.SearchItem SI_ALWAYS_ON_TOP_OFF = new Objects.SearchItem(Objects.SearchItemType.ALWAYS_ON_TOP, Objects.CMD_PREFIX_ALWAYS_ON_TOP + "off - disable always on top mode", Objects.ARG_OFF, null);
+
+    private static final Objects.SearchItem SI_PREVIEW_INV = new Objects.SearchItem(Objects.SearchItemType.INVALID, Objects.CMD_PREFIX_PREVIEW + "[on/off] - show/hide the note preview", null, null);
+    private static final Objects.SearchItem SI_PREVIEW_ON = new Objects.SearchItem(Objects.SearchItemType.PREVIEW, Objects.CMD_PREFIX_PREVIEW + "on - show the note preview", Objects.ARG_ON, null);
+    private static final Objects.SearchItem SI_PREVIEW_OFF = new Objects.SearchItem(Objects.SearchItemType.PREVIEW, Objects.CMD_PREFIX_PREVIEW + "off - hide the note preview", Objects.ARG_OFF, null);
+
+    private static final Objects.SearchItem SI_STARTUP = new Objects.SearchItem(Objects.SearchItemType.INVALID, Objects.CMD_STARTUP + " - show startup timeline", null, null);
+
+    private static final Objects.SearchItem SI_TAB_SIZE_INV = new Objects.SearchItem(Objects.SearchItemType.INVALID, Objects.CMD_PREFIX_TAB_SIZE + "[number] - set tab size in spaces, minimum " + Settings.MIN_TAB_SIZE, null, null);
+
+    private static final int CANCELLATION_CHECK_INTERVAL = 1024;
+    private static final int RESULT_CACHE_SIZE = 32;
+
+    private final Supplier<Path> notesDirectory;
+    private final NoteIndex noteIndex;
+    private final ContentIndex contentIndex;
+    private final StartupTimeline startupTimeline;
+    private final Executor resultExecutor;
+    private final ExecutorService searchExecutor = Executors.newSingleThreadExecutor(Threads.daemonThreadFactory("search"));
+    private final AtomicLong searchGeneration = new AtomicLong();
+
+    private final Map<String, NoteIndex.Note[]> resultCache = new LinkedHashMap<>(RESULT_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, NoteIndex.Note[]> eldest) {
+            return size() > RESULT_CACHE_SIZE;
+        }
+    };
+    private long resultCacheVersion = -1;
+
+    private final FuzzyMatcher matcher = new FuzzyMatcher();
+
+    private record Matches(NoteIndex.Note[] notes, int[] scores, boolean exactMatch) {
+    }
+
+    public SearchService(Supplier<Path> notesDirectory, NoteIndex noteIndex, ContentIndex contentIndex, StartupTimeline startupTimeline, Executor resultExecutor) {
+        this.notesDirectory = notesDirectory;
+        this.noteIndex = noteIndex;
+        this.contentIndex = contentIndex;
+        this.startupTimeline = startupTimeline;
+        this.resultExecutor = resultExecutor;
+    }
+
+    public void search(String searchText, Consumer<SearchResult> resultConsumer) {
+        long generation = searchGeneration.incrementAndGet();
+        BooleanSupplier cancelled = () -> generation != searchGeneration.get();
+        searchExecutor.execute(() -> {
+            if (cancelled.getAsBoolean()) {
+                return;
+            }
+            SearchResult searchResult = getSearchResultOrEmpty(searchText, cancelled);
+            if (searchResult == null || cancelled.getAsBoolean()) {
+                return;
+            }
+            resultExecutor.execute(() -> {
+                if (!cancelled.getAsBoolean()) {
+                    resultConsumer.accept(searchResult);
+                }
+            });
+        });
+    }
+
+    // a failed search still has to answer, otherwise the caller waits for it forever
+    private SearchResult getSearchResultOrEmpty(String searchText, BooleanSupplier cancelled) {
+        try {
+            return getSearchResult(searchText, cancelled);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return SearchResult.EMPTY;
+        }
+    }
+
+    private SearchResult getSearchResult(String searchText, BooleanSupplier cancelled) {
+        if (searchText == null || searchText.isBlank()) {
+            return SearchResult.EMPTY;
+        }
+
+        String lcSearchText = FuzzyMatcher.toLowerCase(searchText);
+
+        if (lcSearchText.startsWith("/")) {
+            return new SearchResult(getCommandSearchItems(lcSearchText));
+        }
+
+        if (lcSearchText.startsWith(Objects.CONTENT_SEARCH_PREFIX)) {
+            return new SearchResult(getContentSearchItems(lcSearchText.substring(Objects.CONTENT_SEARCH_PREFIX.length())));
+        }
+
+        Matches matches = findNotes(lcSearchText, cancelled);
+        if (matches == null) {
+            return null;
+        }
+
+        Objects.SearchItem createItem = null;
+        if (!matches.exactMatch()) {
+            createItem = new Objects.SearchItem(Objects.SearchItemType.CREATE_NOTE, "Create note \"" + lcSearchText + "\"", null, notesDirectory.get().resolve(lcSearchText + NoteIndex.NOTE_EXTENSION));
+        }
+        return new SearchResult(createItem, matches.notes(), matches.scores(), lcSearchText);
+    }
+
+    private Matches findNotes(String lcSearchText, BooleanSupplier cancelled) {
+        long version = noteIndex.getVersion();
+        if (version != resultCacheVersion) {
+            resultCache.clear();
+            resultCacheVersion = version;
+        }
+
+        NoteIndex.Note[] candidates = resultCache.get(lcSearchText);
+        boolean cached = candidates != null;
+        if (!cached) {
+            String candidatesQuery = "";
+            for (Map.Entry<String, NoteIndex.Note[]> entry : resultCache.entrySet()) {
+                if (entry.getKey().length() > candidatesQuery.length() && FuzzyMatcher.isSubsequence(entry.getKey(), lcSearchText)) {
+                    candidates = entry.getValue();
+                    candidatesQuery = entry.getKey();
+                }
+            }
+        }
+        if (candidates == null) {
+            candidates = noteIndex.getCandidates(lcSearchText);
+        }
+
+        char[] query = lcSearchText.toCharArray();
+        NoteIndex.Note[] notes = new NoteIndex.Note[candidates.length];
+        int[] scores = new int[candidates.length];
+        int size = 0;
+        boolean exactMatch = false;
+        for (int i = 0; i < candidates.length; i++) {
+            if (i % CANCELLATION_CHECK_INTERVAL == 0 && cancelled.getAsBoolean()) {
+                return null;
+            }
+            if (candidates[i].folded().length == query.length && candidates[i].lcLabel().equals(lcSearchText)) {
+                exactMatch = true;
+            }
+            int score = matcher.match(candidates[i].folded(), query);
+            if (score != FuzzyMatcher.NO_MATCH) {
+                notes[size] = candidates[i];
+                scores[size] = score;
+                size++;
+            }
+        }
+
+        Matches matches = new Matches(Arrays.copyOf(notes, size), Arrays.copyOf(scores, size), exactMatch);
+        if (!cached) {
+            resultCache.put(lcSearchText, matches.notes());
+        }
+        return matches;
+    }
+
+    private List<Objects.SearchItem> getContentSearchItems(String lcQuery) {
+        List<Objects.SearchItem> searchItems = new ArrayList<>();
+        for (ContentIndex.Hit hit : contentIndex.search(lcQuery)) {
+            searchItems.add(new Objects.SearchItem(Objects.SearchItemType.OPEN_NOTE, hit.label(), null, hit.path(), null, hit.offset()));
+        }
+        return searchItems;
+    }
+
+    private List<Objects.SearchItem> getCommandSearchItems(String lcSearchText) {
+        List<Objects.SearchItem> searchItems = new ArrayList<>();
+        Integer argValue;
+
+        addCommand(searchItems, lcSearchText, Objects.CMD_FILES, SI_FILE_EXPLORER);
+        addOnOffCommand(searchItems, lcSearchText, Objects.CMD_PREFIX_DARK_MODE, SI_DARK_MODE_ON, SI_DARK_MODE_OFF, SI_DARK_MODE_INV);
+        addCommand(searchItems, lcSearchText, Objects.CMD_DIR, SI_CHOOSE_DIR);
+        if ((argValue = addNumberCommand(searchItems, lcSearchText, Objects.CMD_PREFIX_TAB_SIZE, Settings.MIN_TAB_SIZE, SI_TAB_SIZE_INV)) != null) {
+            searchItems.add(new Objects.SearchItem(Objects.SearchItemType.TAB_SIZE, Objects.CMD_PREFIX_TAB_SIZE + argValue + " - set editor tab size to " + argValue + " spaces", String.valueOf(argValue), null));
+        }
+        addOnOffCommand(searchItems, lcSearchText, Objects.CMD_PREFIX_ALWAYS_ON_TOP, SI_ALWAYS_ON_TOP_ON, SI_ALWAYS_ON_TOP_OFF, SI_ALWAYS_ON_TOP_INV);
+        addOnOffCommand(searchItems, lcSearchText, Objects.CMD_PREFIX_PREVIEW, SI_PREVIEW_ON, SI_PREVIEW_OFF, SI_PREVIEW_INV);
+        if (lcSearchText.trim().equals(Objects.CMD_STARTUP)) {
+            for (StartupTimeline.Phase phase : startupTimeline.getPhases()) {
+                searchItems.add(new Objects.SearchItem(Objects.SearchItemType.INVALID, phase.format(), null, null));
+            }
+        } else {
+            addCommand(searchItems, lcSearchText, Objects.CMD_STARTUP, SI_STARTUP);
+        }
+
+        return searchItems;
+    }
+
+    private void addCommand(List<Objects.SearchItem> searchItems, String lcSearchText, String cmd, Objects.SearchItem item) {
+        if (cmd.startsWith(lcSearchText)) {
+            searchItems.add(item);
+        }
+    }
+
+    private void addOnOffCommand(List<Objects.SearchItem> searchItems, String lcSearchText, String cmdPrefix, Objects.SearchItem onItem, Objects.SearchItem offItem, Objects.SearchItem invalidItem) {
+        if (lcSearchText.startsWith(cmdPrefix)) {
+            if (lcSearchText.length() > cmdPrefix.length()) {
+                String arg = lcSearchText.substring(cmdPrefix.length()).toLowerCase().trim();
+                if (arg.equals(Objects.ARG_ON)) {
+                    searchItems.add(onItem);
+                } else if (arg.equals(Objects.ARG_OFF)) {
+                    searchItems.add(offItem);
+                } else {
+                    searchItems.add(invalidItem);
+                }
+            } else {
+                searchItems.add(invalidItem);
+            }
+        } else if (cmdPrefix.startsWith(lcSearchText)) {
+            searchItems.add(invalidItem);
+        }
+    }
+
+    private Integer addNumberCommand(List<Objects.SearchItem> searchItems, String lcSearchText, String cmdPrefix, int minValue, Objects.SearchItem invalidItem) {
+        if (lcSearchText.startsWith(cmdPrefix)) {
+            if (lcSearchText.length() > cmdPrefix.length()) {
+                String arg = lcSearchText.substring(cmdPrefix.length()).toLowerCase().trim();
+                if (isInteger(arg)) {
+                    int argInt = Integer.parseInt(arg);
+                    if (argInt >= minValue) {
+                        return argInt;
+                    } else {
+                        searchItems.add(invalidItem);
+                    }
+                } else {
+                    searchItems.add(invalidItem);
+                }
+            } else {
+                searchItems.add(invalidItem);
+            }
+        } else if (cmdPrefix.startsWith(lcSearchText)) {
+            searchItems.add(invalidItem);
+        }
+        return null;
+    }
+
+    // https://stackoverflow.com/a/237204
+    private boolean isInteger(String str) {
+        if (str == null) {
+            return false;
+        }
+        int length = str.length();
+        if (length == 0) {
+            return false;
+        }
+        int i = 0;
+        if (str.charAt(0) == '-') {
+            if (length == 1) {
+                return false;
+            }
+            i = 1;
+        }
+        for (; i < length; i++) {
+            char c = str.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
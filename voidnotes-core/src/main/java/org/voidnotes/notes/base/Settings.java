@@ -1,13 +1,29 @@
 package org.voidnotes.notes.base;
 
-import java.awt.*;
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class Settings {
     private static final String SETTINGS_FILE_NAME = "settings.txt";
+    private static final int SAVE_DELAY_MILLIS = 1000;
+    public static final int FRAME_POSITION_UNSET = Integer.MIN_VALUE;
+    private static final Pattern TEMPLATE_PROPERTY_PATTERN = Pattern.compile("\\$\\{([^}]+)}");
+
+    private record TemplateToken(String text, boolean property) {
+    }
 
     private static final String PROP_DIRECTORY = "notes_directory";
     private static final String DEFAULT_DIRECTORY_NAME = "VoidNotes";
@@ -27,6 +43,10 @@ public class Settings {
     private static final boolean DEFAULT_ALWAYS_ON_TOP = false;
     private boolean alwaysOnTop = DEFAULT_ALWAYS_ON_TOP;
 
+    private static final String PROP_PREVIEW = "preview";
+    private static final boolean DEFAULT_PREVIEW = false;
+    private boolean preview = DEFAULT_PREVIEW;
+
     private static final String PROP_SAVE_MODE = "save_mode";
     public static final String SAVE_MODE_ON_CLOSE = "on_close";
     public static final String SAVE_MODE_IMMEDIATE = "immediate";
@@ -48,11 +68,11 @@ public class Settings {
     public static final int MIN_SEARCH_FRAME_HEIGHT = 100;
 
     private static final String PROP_SEARCH_FRAME_X = "search_frame_x";
-    private static final int DEFAULT_SEARCH_FRAME_X = (Toolkit.getDefaultToolkit().getScreenSize().width - DEFAULT_SEARCH_FRAME_WIDTH) / 2;
+    private static final int DEFAULT_SEARCH_FRAME_X = FRAME_POSITION_UNSET;
     private int searchFrameX = DEFAULT_SEARCH_FRAME_X;
 
     private static final String PROP_SEARCH_FRAME_Y = "search_frame_y";
-    private static final int DEFAULT_SEARCH_FRAME_Y = (Toolkit.getDefaultToolkit().getScreenSize().height - DEFAULT_SEARCH_FRAME_HEIGHT) / 2;
+    private static final int DEFAULT_SEARCH_FRAME_Y = FRAME_POSITION_UNSET;
     private int searchFrameY = DEFAULT_SEARCH_FRAME_Y;
 
     private static final String PROP_EDITOR_FRAME_WIDTH = "editor_frame_width";
@@ -66,11 +86,11 @@ public class Settings {
     public static final int MIN_EDITOR_FRAME_HEIGHT = 100;
 
     private static final String PROP_EDITOR_FRAME_X = "editor_frame_x";
-    private static final int DEFAULT_EDITOR_FRAME_X = (Toolkit.getDefaultToolkit().getScreenSize().width - DEFAULT_EDITOR_FRAME_WIDTH) / 2;
+    private static final int DEFAULT_EDITOR_FRAME_X = FRAME_POSITION_UNSET;
     private int editorFrameX = DEFAULT_EDITOR_FRAME_X;
 
     private static final String PROP_EDITOR_FRAME_Y = "editor_frame_y";
-    private static final int DEFAULT_EDITOR_FRAME_Y = (Toolkit.getDefaultToolkit().getScreenSize().height - DEFAULT_EDITOR_FRAME_HEIGHT) / 2;
+    private static final int DEFAULT_EDITOR_FRAME_Y = FRAME_POSITION_UNSET;
     private int editorFrameY = DEFAULT_EDITOR_FRAME_Y;
 
     private static final String PROP_EDITOR_FONT_MONOSPACED = "editor_font_monospaced";
@@ -82,17 +102,29 @@ public class Settings {
     private int editorFontSize = DEFAULT_EDITOR_FONT_SIZE;
     public static final int MIN_EDITOR_FONT_SIZE = 6;
 
-    private String settingsTemplate;
+    private final List<TemplateToken> settingsTemplate = new ArrayList<>();
     private final File settingsFile;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(Threads.daemonThreadFactory("settings"));
+    private final Debouncer saveDebouncer;
+    private boolean dirty = false;
 
-    public Settings() {
+    public Settings(Executor saveExecutor) {
         settingsFile = getSettingsFile();
+        saveDebouncer = new Debouncer(SAVE_DELAY_MILLIS, saveExecutor, this::flush);
         readSettingsTemplate();
         ensureSettingsFileExist();
         load();
     }
 
-    private File getSettingsFile() {
+    public File getConfigDirectory() {
+        return settingsFile.getParentFile();
+    }
+
+    public static File getDefaultConfigDirectory() {
+        return getSettingsFile().getParentFile();
+    }
+
+    private static File getSettingsFile() {
         if (OSUtils.isWindows()) {
             return new File(System.getProperty("user.home"), "AppData/Roaming/VoidNotes/" + SETTINGS_FILE_NAME);
         } else if (OSUtils.isMac()) {
@@ -102,11 +134,22 @@ public class Settings {
     }
 
     private void readSettingsTemplate() {
+        String template;
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(getClass().getResourceAsStream("/settings.properties")))) {
-            settingsTemplate = reader.lines().reduce("", (s1, s2) -> s1 + s2 + "\n");
+            template = reader.lines().map(line -> line + "\n").collect(Collectors.joining());
         } catch (IOException e) {
             e.printStackTrace();
+            return;
+        }
+
+        Matcher matcher = TEMPLATE_PROPERTY_PATTERN.matcher(template);
+        int textStart = 0;
+        while (matcher.find()) {
+            settingsTemplate.add(new TemplateToken(template.substring(textStart, matcher.start()), false));
+            settingsTemplate.add(new TemplateToken(matcher.group(1), true));
+            textStart = matcher.end();
         }
+        settingsTemplate.add(new TemplateToken(template.substring(textStart), false));
     }
 
     private void load() {
@@ -145,6 +188,7 @@ public class Settings {
         setSystemTrayEnabled(getBooleanValue(settings, PROP_ENABLE_SYSTEM_TRAY, DEFAULT_ENABLE_SYSTEM_TRAY));
         setDarkMode(getBooleanValue(settings, PROP_DARK_MODE, DEFAULT_DARK_MODE));
         setAlwaysOnTop(getBooleanValue(settings, PROP_ALWAYS_ON_TOP, DEFAULT_ALWAYS_ON_TOP));
+        setPreviewEnabled(getBooleanValue(settings, PROP_PREVIEW, DEFAULT_PREVIEW));
         setEditorFontMonospaced(getBooleanValue(settings, PROP_EDITOR_FONT_MONOSPACED, DEFAULT_EDITOR_FONT_MONOSPACED));
         setEditorFontSize(getIntValue(settings, PROP_EDITOR_FONT_SIZE, DEFAULT_EDITOR_FONT_SIZE));
         setSaveMode(getStringValue(settings, PROP_SAVE_MODE, DEFAULT_SAVE_MODE, SAVE_MODE_ON_CLOSE, SAVE_MODE_IMMEDIATE));
@@ -184,22 +228,46 @@ public class Settings {
     }
 
     public void save() {
-        ensureSettingsFileExist();
+        dirty = true;
+        saveDebouncer.start();
+    }
+
+    public void flush() {
+        saveDebouncer.stop();
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        String settingsText = render();
+        executor.execute(() -> write(settingsText));
+    }
 
+    public void flushAndWait() {
+        flush();
+        try {
+            executor.submit(() -> {
+            }).get();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private String render() {
         Properties settings = new Properties();
         settings.put(PROP_DIRECTORY, getDirectory());
         settings.put(PROP_TAB_SIZE, String.valueOf(getTabSize()));
         settings.put(PROP_SEARCH_FRAME_WIDTH, String.valueOf(getSearchFrameWidth()));
         settings.put(PROP_SEARCH_FRAME_HEIGHT, String.valueOf(getSearchFrameHeight()));
-        settings.put(PROP_SEARCH_FRAME_X, String.valueOf(getSearchFrameX()));
-        settings.put(PROP_SEARCH_FRAME_Y, String.valueOf(getSearchFrameY()));
+        settings.put(PROP_SEARCH_FRAME_X, getFramePosition(getSearchFrameX()));
+        settings.put(PROP_SEARCH_FRAME_Y, getFramePosition(getSearchFrameY()));
         settings.put(PROP_EDITOR_FRAME_WIDTH, String.valueOf(getEditorFrameWidth()));
         settings.put(PROP_EDITOR_FRAME_HEIGHT, String.valueOf(getEditorFrameHeight()));
-        settings.put(PROP_EDITOR_FRAME_X, String.valueOf(getEditorFrameX()));
-        settings.put(PROP_EDITOR_FRAME_Y, String.valueOf(getEditorFrameY()));
+        settings.put(PROP_EDITOR_FRAME_X, getFramePosition(getEditorFrameX()));
+        settings.put(PROP_EDITOR_FRAME_Y, getFramePosition(getEditorFrameY()));
         settings.put(PROP_ENABLE_SYSTEM_TRAY, String.valueOf(isSystemTrayEnabled()));
         settings.put(PROP_DARK_MODE, String.valueOf(isDarkMode()));
         settings.put(PROP_ALWAYS_ON_TOP, String.valueOf(isAlwaysOnTop()));
+        settings.put(PROP_PREVIEW, String.valueOf(isPreviewEnabled()));
         settings.put(PROP_EDITOR_FONT_MONOSPACED, String.valueOf(isEditorFontMonospaced()));
         settings.put(PROP_EDITOR_FONT_SIZE, String.valueOf(getEditorFontSize()));
         settings.put(PROP_SAVE_MODE, getSaveMode());
@@ -209,13 +277,39 @@ public class Settings {
         settings.put("default_" + PROP_TAB_SIZE, String.valueOf(DEFAULT_TAB_SIZE));
         settings.put("default_" + PROP_EDITOR_FONT_SIZE, String.valueOf(DEFAULT_EDITOR_FONT_SIZE));
 
-        String settingsText = settingsTemplate;
-        for (String propertyName : settings.stringPropertyNames()) {
-            settingsText = settingsText.replace("${" + propertyName + "}", settings.getProperty(propertyName));
+        StringBuilder settingsText = new StringBuilder();
+        for (TemplateToken token : settingsTemplate) {
+            if (!token.property()) {
+                settingsText.append(token.text());
+            } else if (settings.containsKey(token.text())) {
+                settingsText.append(settings.getProperty(token.text()));
+            } else {
+                settingsText.append("${").append(token.text()).append('}');
+            }
         }
+        return settingsText.toString();
+    }
 
-        try (FileWriter writer = new FileWriter(settingsFile)) {
-            writer.write(settingsText);
+    // an unset position is written empty, so the frame gets centered on the screen it opens on
+    private static String getFramePosition(int position) {
+        return position == FRAME_POSITION_UNSET ? "" : String.valueOf(position);
+    }
+
+    private void write(String settingsText) {
+        Path path = settingsFile.toPath();
+        try {
+            Files.createDirectories(path.getParent());
+            Path tempFile = Files.createTempFile(path.getParent(), "." + path.getFileName(), ".tmp");
+            try {
+                Files.writeString(tempFile, settingsText);
+                try {
+                    Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -223,13 +317,7 @@ public class Settings {
 
     private void ensureSettingsFileExist() {
         if (!settingsFile.exists()) {
-            try {
-                settingsFile.getParentFile().mkdirs();
-                settingsFile.createNewFile();
-                save();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            write(render());
         }
     }
 
@@ -353,6 +441,14 @@ public class Settings {
         this.alwaysOnTop = alwaysOnTop;
     }
 
+    public boolean isPreviewEnabled() {
+        return preview;
+    }
+
+    public void setPreviewEnabled(boolean preview) {
+        this.preview = preview;
+    }
+
     public String getSaveMode() {
         return saveMode;
     }
@@ -0,0 +1,237 @@
+package org.voidnotes.notes.base;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+public class SingleInstance {
+    private static final String SOCKET_FILE_NAME = "instance.sock";
+    private static final String LOCK_FILE_NAME = "instance.lock";
+    private static final int MAX_ARGUMENTS = 256;
+    private static final int MAX_ARGUMENT_BYTES = 16 * 1024 * 1024;
+    private static final long TIMEOUT_MILLIS = 2000;
+    private static final long CLAIM_TIMEOUT_MILLIS = 5000;
+    private static final long CLAIM_RETRY_MILLIS = 50;
+    private static final byte ACK = 1;
+
+    private final Path socketPath;
+    private final Path lockPath;
+
+    // commands that arrive before the application is ready to serve them
+    private final List<List<String>> pendingCommands = new ArrayList<>();
+    private Consumer<List<String>> commandConsumer;
+    private Executor commandExecutor;
+
+    private FileLock lock;
+
+    public SingleInstance(File configDirectory) {
+        socketPath = configDirectory.toPath().resolve(SOCKET_FILE_NAME);
+        lockPath = configDirectory.toPath().resolve(LOCK_FILE_NAME);
+    }
+
+    // either forwards the command to the running instance or makes this process the running one, returns true in the latter case
+    public boolean claim(List<String> command) {
+        long deadline = System.currentTimeMillis() + CLAIM_TIMEOUT_MILLIS;
+        while (true) {
+            if (forward(command)) {
+                return false;
+            }
+            if (tryLock()) {
+                listen();
+                return true;
+            }
+            // the lock holder is still starting up and hasn't bound the socket yet, or it doesn't answer
+            if (System.currentTimeMillis() > deadline) {
+                System.err.println("Another instance holds " + lockPath + " but doesn't respond");
+                return false;
+            }
+            try {
+                Thread.sleep(CLAIM_RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+    }
+
+    public synchronized void serve(Consumer<List<String>> commandConsumer, Executor commandExecutor) {
+        this.commandConsumer = commandConsumer;
+        this.commandExecutor = commandExecutor;
+        pendingCommands.forEach(command -> commandExecutor.execute(() -> commandConsumer.accept(command)));
+        pendingCommands.clear();
+    }
+
+    private synchronized void received(List<String> command) {
+        if (commandConsumer == null) {
+            pendingCommands.add(command);
+        } else {
+            commandExecutor.execute(() -> commandConsumer.accept(command));
+        }
+    }
+
+    private boolean forward(List<String> command) {
+        if (!Files.exists(socketPath)) {
+            return false;
+        }
+        SocketChannel channel;
+        try {
+            channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath));
+        } catch (IOException e) {
+            return false;
+        }
+        Thread timeout = closeAfterTimeout(channel);
+        try {
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+            out.writeInt(command.size());
+            for (String argument : command) {
+                byte[] bytes = argument.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.flush();
+            ByteBuffer ack = ByteBuffer.allocate(1);
+            return channel.read(ack) == 1 && ack.get(0) == ACK;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            timeout.interrupt();
+            close(channel);
+        }
+    }
+
+    // blocking channels ignore socket timeouts, closing the channel is what unblocks them
+    private static Thread closeAfterTimeout(SocketChannel channel) {
+        return Threads.startDaemonThread("single-instance-timeout", () -> {
+            try {
+                Thread.sleep(TIMEOUT_MILLIS);
+                channel.close();
+            } catch (InterruptedException | IOException ignored) {
+            }
+        });
+    }
+
+    private static void close(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // the lock is held until the process ends, the OS releases it even after a crash
+    private boolean tryLock() {
+        try {
+            Files.createDirectories(lockPath.getParent());
+            FileChannel channel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            lock = channel.tryLock();
+            if (lock == null) {
+                channel.close();
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            // without a lock there is no way to coordinate, so run on our own
+            return true;
+        }
+    }
+
+    private void listen() {
+        ServerSocketChannel server;
+        try {
+            if (Files.exists(socketPath) && !isRefusingConnections()) {
+                System.err.println("Socket " + socketPath + " is still in use, not listening for other launches");
+                return;
+            }
+            Files.deleteIfExists(socketPath);
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            server.bind(UnixDomainSocketAddress.of(socketPath));
+        } catch (IOException | UnsupportedOperationException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+                if (lock != null) {
+                    Files.deleteIfExists(socketPath);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }));
+        Threads.startDaemonThread("single-instance", () -> accept(server));
+    }
+
+    private boolean isRefusingConnections() {
+        try {
+            SocketChannel.open(UnixDomainSocketAddress.of(socketPath)).close();
+            return false;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    // a client that stalls must not hold up later launches, so every connection gets its own thread and deadline
+    private void accept(ServerSocketChannel server) {
+        while (server.isOpen()) {
+            try {
+                SocketChannel channel = server.accept();
+                Threads.startDaemonThread("single-instance-client", () -> receive(channel));
+            } catch (IOException e) {
+                if (server.isOpen()) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void receive(SocketChannel channel) {
+        Thread timeout = closeAfterTimeout(channel);
+        try {
+            List<String> command = readCommand(new DataInputStream(Channels.newInputStream(channel)));
+            channel.write(ByteBuffer.wrap(new byte[]{ACK}));
+            received(command);
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            timeout.interrupt();
+            close(channel);
+        }
+    }
+
+    private static List<String> readCommand(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > MAX_ARGUMENTS) {
+            throw new IOException("Invalid argument count " + count);
+        }
+        List<String> command = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = in.readInt();
+            if (length < 0 || length > MAX_ARGUMENT_BYTES) {
+                throw new IOException("Invalid argument length " + length);
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            command.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return command;
+    }
+}
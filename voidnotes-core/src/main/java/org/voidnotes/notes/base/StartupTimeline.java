@@ -0,0 +1,44 @@
+package org.voidnotes.notes.base;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class StartupTimeline {
+    public record Phase(String name, long durationNanos, long elapsedNanos) {
+        public String format() {
+            return String.format("%s +%.3f ms (at %.3f ms)", name, durationNanos / 1_000_000.0, elapsedNanos / 1_000_000.0);
+        }
+    }
+
+    private final long startNanos = System.nanoTime();
+    private long lastNanos = startNanos;
+    private final List<Phase> phases = new ArrayList<>();
+
+    public synchronized void mark(String name) {
+        long now = System.nanoTime();
+        phases.add(new Phase(name, now - lastNanos, now - startNanos));
+        lastNanos = now;
+    }
+
+    // for phases that may happen repeatedly, only the first occurrence is interesting
+    public synchronized void markOnce(String name) {
+        for (Phase phase : phases) {
+            if (phase.name().equals(name)) {
+                return;
+            }
+        }
+        mark(name);
+    }
+
+    public synchronized List<Phase> getPhases() {
+        return List.copyOf(phases);
+    }
+
+    public String format() {
+        StringBuilder text = new StringBuilder();
+        for (Phase phase : getPhases()) {
+            text.append(phase.format()).append('\n');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,114 @@
+package org.voidnotes.notes.base;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TextSnapshot implements CharSequence {
+    private record Pieces(PieceTableContent.Piece[] pieces, int[] offsets) {
+    }
+
+    private final PieceTableContent.Piece root;
+    private final int length;
+
+    private volatile Pieces pieces;
+    private int cursor = 0;
+
+    TextSnapshot(PieceTableContent.Piece root, int length) {
+        this.root = root;
+        this.length = length;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        Pieces pieces = getPieces();
+        int piece = cursor;
+        if (index < pieces.offsets()[piece] || index >= pieces.offsets()[piece] + pieces.pieces()[piece].length) {
+            piece = findPiece(pieces, index);
+            cursor = piece;
+        }
+        PieceTableContent.Piece current = pieces.pieces()[piece];
+        return current.buffer[current.start + index - pieces.offsets()[piece]];
+    }
+
+    @Override
+    public String subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException(start);
+        }
+        char[] chars = new char[end - start];
+        PieceTableContent.copy(root, start, end, chars, 0);
+        return new String(chars);
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length);
+    }
+
+    public void write(Writer writer, int start) throws IOException {
+        if (start >= length) {
+            return;
+        }
+        Pieces pieces = getPieces();
+        for (int i = findPiece(pieces, start); i < pieces.pieces().length; i++) {
+            PieceTableContent.Piece piece = pieces.pieces()[i];
+            int from = Math.max(start - pieces.offsets()[i], 0);
+            int to = Math.min(piece.length, length - pieces.offsets()[i]);
+            if (from < to) {
+                writer.write(piece.buffer, piece.start + from, to - from);
+            }
+        }
+    }
+
+    private Pieces getPieces() {
+        Pieces pieces = this.pieces;
+        if (pieces == null) {
+            List<PieceTableContent.Piece> list = new ArrayList<>();
+            collect(root, list);
+            int[] offsets = new int[list.size()];
+            int offset = 0;
+            for (int i = 0; i < list.size(); i++) {
+                offsets[i] = offset;
+                offset += list.get(i).length;
+            }
+            pieces = new Pieces(list.toArray(new PieceTableContent.Piece[0]), offsets);
+            this.pieces = pieces;
+        }
+        return pieces;
+    }
+
+    private static void collect(PieceTableContent.Piece piece, List<PieceTableContent.Piece> pieces) {
+        while (piece != null) {
+            collect(piece.left, pieces);
+            if (piece.length > 0) {
+                pieces.add(piece);
+            }
+            piece = piece.right;
+        }
+    }
+
+    private static int findPiece(Pieces pieces, int index) {
+        int[] offsets = pieces.offsets();
+        int low = 0;
+        int high = offsets.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (offsets[middle] <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+}
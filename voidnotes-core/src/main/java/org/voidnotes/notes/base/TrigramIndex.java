@@ -0,0 +1,240 @@
+package org.voidnotes.notes.base;
+
+import java.util.Arrays;
+
+public class TrigramIndex {
+    private static final long UNIGRAM = 1L << 48;
+    private static final long TRIGRAM = 3L << 48;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private int[] slots = new int[INITIAL_CAPACITY];
+    private int keyCount = 0;
+
+    private byte[][] postings = new byte[INITIAL_CAPACITY][];
+    private int[] postingLengths = new int[INITIAL_CAPACITY];
+    private int[] postingCounts = new int[INITIAL_CAPACITY];
+    private int[] lastIds = new int[INITIAL_CAPACITY];
+
+    private long[] removed = new long[16];
+    private int removedCount = 0;
+    private int addedCount = 0;
+    private int maxId = -1;
+
+    public synchronized void add(int id, char[] text) {
+        if (id <= maxId) {
+            throw new IllegalArgumentException("Ids must be added in ascending order: " + id);
+        }
+        maxId = id;
+        addedCount++;
+
+        long[] grams = getGrams(text, true, true);
+        Arrays.sort(grams);
+        long previous = 0;
+        for (long gram : grams) {
+            if (gram != previous) {
+                append(getSlot(gram, true), id);
+                previous = gram;
+            }
+        }
+    }
+
+    public synchronized void remove(int id) {
+        if (id > maxId || isRemoved(id)) {
+            return;
+        }
+        int word = id >>> 6;
+        if (word >= removed.length) {
+            removed = Arrays.copyOf(removed, Math.max(word + 1, removed.length * 2));
+        }
+        removed[word] |= 1L << id;
+        removedCount++;
+        if (removedCount > 64 && removedCount * 2 > addedCount) {
+            compact();
+        }
+    }
+
+    public synchronized long[] getCandidates(char[] query, boolean contiguous) {
+        if (query.length == 0 || (contiguous && query.length < 3)) {
+            return null;
+        }
+        if (maxId < 0) {
+            return new long[0];
+        }
+        long[] grams = getGrams(query, !contiguous, contiguous);
+        int[] gramSlots = new int[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            gramSlots[i] = getSlot(grams[i], false);
+            if (gramSlots[i] < 0) {
+                return new long[0];
+            }
+        }
+
+        int smallest = 0;
+        for (int i = 1; i < gramSlots.length; i++) {
+            if (postingCounts[gramSlots[i]] < postingCounts[gramSlots[smallest]]) {
+                smallest = i;
+            }
+        }
+
+        long[] candidates = new long[(maxId >>> 6) + 1];
+        decode(gramSlots[smallest], candidates);
+        for (int i = 0; i < removed.length && i < candidates.length; i++) {
+            candidates[i] &= ~removed[i];
+        }
+        long[] gramCandidates = new long[candidates.length];
+        for (int i = 0; i < gramSlots.length; i++) {
+            if (i == smallest || gramSlots[i] == gramSlots[smallest]) {
+                continue;
+            }
+            Arrays.fill(gramCandidates, 0);
+            decode(gramSlots[i], gramCandidates);
+            for (int w = 0; w < candidates.length; w++) {
+                candidates[w] &= gramCandidates[w];
+            }
+        }
+        return candidates;
+    }
+
+    public static int count(long[] candidates) {
+        int count = 0;
+        for (long word : candidates) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    private boolean isRemoved(int id) {
+        int word = id >>> 6;
+        return word < removed.length && (removed[word] & (1L << id)) != 0;
+    }
+
+    private static long[] getGrams(char[] text, boolean unigrams, boolean trigrams) {
+        int trigramCount = trigrams ? Math.max(0, text.length - 2) : 0;
+        long[] grams = new long[(unigrams ? text.length : 0) + trigramCount];
+        int count = 0;
+        if (unigrams) {
+            for (char c : text) {
+                grams[count++] = UNIGRAM | c;
+            }
+        }
+        for (int i = 0; i < trigramCount; i++) {
+            grams[count++] = TRIGRAM | ((long) text[i] << 32) | ((long) text[i + 1] << 16) | text[i + 2];
+        }
+        return grams;
+    }
+
+    private int getSlot(long gram, boolean create) {
+        int mask = keys.length - 1;
+        int index = hash(gram) & mask;
+        while (keys[index] != 0) {
+            if (keys[index] == gram) {
+                return slots[index];
+            }
+            index = (index + 1) & mask;
+        }
+        if (!create) {
+            return -1;
+        }
+
+        if (keyCount == postings.length) {
+            int capacity = postings.length * 2;
+            postings = Arrays.copyOf(postings, capacity);
+            postingLengths = Arrays.copyOf(postingLengths, capacity);
+            postingCounts = Arrays.copyOf(postingCounts, capacity);
+            lastIds = Arrays.copyOf(lastIds, capacity);
+        }
+        int slot = keyCount++;
+        postings[slot] = new byte[4];
+        lastIds[slot] = -1;
+        keys[index] = gram;
+        slots[index] = slot;
+        if (keyCount * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldSlots = slots;
+        keys = new long[capacity];
+        slots = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int index = hash(oldKeys[i]) & mask;
+                while (keys[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                slots[index] = oldSlots[i];
+            }
+        }
+    }
+
+    private void append(int slot, int id) {
+        int delta = id - lastIds[slot];
+        byte[] posting = postings[slot];
+        int length = postingLengths[slot];
+        if (length + 5 > posting.length) {
+            posting = postings[slot] = Arrays.copyOf(posting, Math.max(length + 5, posting.length * 2));
+        }
+        while ((delta & ~0x7F) != 0) {
+            posting[length++] = (byte) ((delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        posting[length++] = (byte) delta;
+        postingLengths[slot] = length;
+        postingCounts[slot]++;
+        lastIds[slot] = id;
+    }
+
+    private void decode(int slot, long[] target) {
+        byte[] posting = postings[slot];
+        int length = postingLengths[slot];
+        int id = -1;
+        int position = 0;
+        while (position < length) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = posting[position++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            id += delta;
+            target[id >>> 6] |= 1L << id;
+        }
+    }
+
+    private void compact() {
+        long[] ids = new long[(maxId >>> 6) + 1];
+        for (int slot = 0; slot < keyCount; slot++) {
+            Arrays.fill(ids, 0);
+            decode(slot, ids);
+            postingLengths[slot] = 0;
+            postingCounts[slot] = 0;
+            lastIds[slot] = -1;
+            for (int word = 0; word < ids.length; word++) {
+                long bits = ids[word] & (word < removed.length ? ~removed[word] : -1L);
+                while (bits != 0) {
+                    append(slot, (word << 6) + Long.numberOfTrailingZeros(bits));
+                    bits &= bits - 1;
+                }
+            }
+            if (postingCounts[slot] == 0) {
+                postings[slot] = new byte[4];
+            }
+        }
+        addedCount -= removedCount;
+        removedCount = 0;
+        Arrays.fill(removed, 0);
+    }
+
+    private static int hash(long gram) {
+        gram *= 0x9E3779B97F4A7C15L;
+        return (int) (gram ^ (gram >>> 32));
+    }
+}
@@ -0,0 +1,191 @@
+package org.voidnotes.notes.base;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class UndoHistory {
+    private static final long MAX_HEAP_BYTES = 2 * 1024 * 1024;
+    private static final long COALESCE_MILLIS = 1000;
+    private static final int MAX_TYPED_CHARS = 2;
+    private static final int MAX_RUN_CHARS = 1024;
+    private static final int CHANGE_OVERHEAD_BYTES = 64;
+    private static final int PREFETCH_LOW_CHANGES = 32;
+    private static final long PREFETCH_BYTES = 256 * 1024;
+
+    public record Change(int offset, String removed, String inserted) {
+        private long getHeapBytes() {
+            return CHANGE_OVERHEAD_BYTES + 2L * (removed.length() + inserted.length());
+        }
+    }
+
+    private final UndoJournal journal;
+    private final Path journalFile;
+
+    private final Deque<Change> undoChanges = new ArrayDeque<>();
+    private final Deque<Change> redoChanges = new ArrayDeque<>();
+    private long heapBytes = 0;
+    private long redoBytes = 0;
+    private boolean runOpen = false;
+    private long lastChangeTime;
+    private boolean closed = false;
+
+    // journal changes are read ahead while undoing, so the EDT rarely waits for the file
+    private CompletableFuture<List<Change>> prefetch;
+    private boolean journalEmpty = false;
+
+    UndoHistory(UndoJournal journal, Path journalFile) {
+        this.journal = journal;
+        this.journalFile = journalFile;
+    }
+
+    public void changed(Change change) {
+        long now = System.currentTimeMillis();
+        clearRedo();
+        Change merged = runOpen && now - lastChangeTime <= COALESCE_MILLIS ? merge(undoChanges.peekLast(), change) : null;
+        if (merged != null) {
+            heapBytes -= undoChanges.pollLast().getHeapBytes();
+            change = merged;
+        }
+        undoChanges.addLast(change);
+        heapBytes += change.getHeapBytes();
+        runOpen = !change.inserted().endsWith("\n");
+        lastChangeTime = now;
+        trim();
+    }
+
+    // single keystrokes of a typing, backspace or delete run collapse into the change they continue
+    private static Change merge(Change last, Change change) {
+        if (last == null || change.removed().length() + change.inserted().length() > MAX_TYPED_CHARS
+                || last.removed().length() + last.inserted().length() >= MAX_RUN_CHARS) {
+            return null;
+        }
+        int lastEnd = last.offset() + last.inserted().length();
+        if (change.removed().isEmpty() && change.offset() == lastEnd && !change.inserted().isEmpty()) {
+            return new Change(last.offset(), last.removed(), last.inserted() + change.inserted());
+        }
+        if (!change.inserted().isEmpty() || change.removed().isEmpty()) {
+            return null;
+        }
+        int removedEnd = change.offset() + change.removed().length();
+        if (!last.inserted().isEmpty()) {
+            if (removedEnd == lastEnd && change.offset() >= last.offset()) {
+                return new Change(last.offset(), last.removed(), last.inserted().substring(0, change.offset() - last.offset()));
+            }
+            return null;
+        }
+        if (removedEnd == last.offset()) {
+            return new Change(change.offset(), change.removed() + last.removed(), "");
+        }
+        if (change.offset() == last.offset()) {
+            return new Change(last.offset(), last.removed() + change.removed(), "");
+        }
+        return null;
+    }
+
+    public Change undo() {
+        runOpen = false;
+        if (undoChanges.isEmpty()) {
+            startPrefetch();
+            mergePrefetch();
+        } else if (prefetch != null && prefetch.isDone()) {
+            mergePrefetch();
+        }
+        Change change = undoChanges.pollLast();
+        if (change == null) {
+            return null;
+        }
+        redoChanges.addLast(change);
+        redoBytes += change.getHeapBytes();
+        trim();
+        if (undoChanges.size() < PREFETCH_LOW_CHANGES) {
+            startPrefetch();
+        }
+        return change;
+    }
+
+    private void startPrefetch() {
+        if (prefetch == null && !journalEmpty) {
+            prefetch = journal.pop(journalFile, PREFETCH_BYTES);
+        }
+    }
+
+    // the prefetched changes are older than everything on the heap
+    private void mergePrefetch() {
+        if (prefetch == null) {
+            return;
+        }
+        List<Change> changes = prefetch.join();
+        prefetch = null;
+        journalEmpty = changes.isEmpty();
+        for (int i = changes.size() - 1; i >= 0; i--) {
+            undoChanges.addFirst(changes.get(i));
+            heapBytes += changes.get(i).getHeapBytes();
+        }
+    }
+
+    public Change redo() {
+        runOpen = false;
+        Change change = redoChanges.pollLast();
+        if (change == null) {
+            return null;
+        }
+        redoBytes -= change.getHeapBytes();
+        undoChanges.addLast(change);
+        trim();
+        return change;
+    }
+
+    public void close(CharSequence text) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        mergePrefetch();
+        journal.close(journalFile, new ArrayList<>(undoChanges), text);
+        undoChanges.clear();
+        redoChanges.clear();
+        heapBytes = 0;
+        redoBytes = 0;
+    }
+
+    private void clearRedo() {
+        heapBytes -= redoBytes;
+        redoBytes = 0;
+        redoChanges.clear();
+    }
+
+    private void trim() {
+        // the farthest redo changes go first, so undoing doesn't spill the changes it's about to undo
+        while (heapBytes > MAX_HEAP_BYTES && redoBytes > MAX_HEAP_BYTES / 2) {
+            dropFarthestRedo();
+        }
+        if (heapBytes <= MAX_HEAP_BYTES) {
+            return;
+        }
+        // spill the oldest undo changes to the journal, they are newer than everything already in there
+        mergePrefetch();
+        List<Change> spilled = new ArrayList<>();
+        while (heapBytes > MAX_HEAP_BYTES / 2 && undoChanges.size() > 1) {
+            Change change = undoChanges.pollFirst();
+            heapBytes -= change.getHeapBytes();
+            spilled.add(change);
+        }
+        if (!spilled.isEmpty()) {
+            journal.append(journalFile, spilled);
+            journalEmpty = false;
+        }
+        while (heapBytes > MAX_HEAP_BYTES && !redoChanges.isEmpty()) {
+            dropFarthestRedo();
+        }
+    }
+
+    private void dropFarthestRedo() {
+        long bytes = redoChanges.pollFirst().getHeapBytes();
+        heapBytes -= bytes;
+        redoBytes -= bytes;
+    }
+}
@@ -0,0 +1,238 @@
+package org.voidnotes.notes.base;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class UndoJournal {
+    private static final String JOURNAL_DIRECTORY_NAME = "undo";
+    private static final int JOURNAL_FILE_MAGIC = 0x564E554A;
+    private static final int JOURNAL_FILE_VERSION = 1;
+    private static final int HEADER_BYTES = 20;
+    private static final long MAX_JOURNAL_BYTES = 16 * 1024 * 1024;
+
+    // written to the header while a note is open, a crash leaves the journal unusable instead of out of sync
+    private static final Fingerprint OPEN_FINGERPRINT = new Fingerprint(0, -1);
+
+    private final File directory;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(Threads.daemonThreadFactory("undo-journal"));
+
+    public UndoJournal(File configDirectory) {
+        directory = new File(configDirectory, JOURNAL_DIRECTORY_NAME);
+    }
+
+    public UndoHistory open(Path notePath, CharSequence text) {
+        Path file = getJournalFile(notePath);
+        executor.execute(() -> {
+            try {
+                if (!Fingerprint.of(text).equals(readFingerprint(file))) {
+                    Files.deleteIfExists(file);
+                } else {
+                    writeFingerprint(file, OPEN_FINGERPRINT);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        return new UndoHistory(this, file);
+    }
+
+    void append(Path file, List<UndoHistory.Change> changes) {
+        executor.execute(() -> {
+            try {
+                appendChanges(file, changes);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    // the newest changes of the journal, oldest first
+    CompletableFuture<List<UndoHistory.Change>> pop(Path file, long maxBytes) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return popChanges(file, maxBytes);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return List.of();
+            }
+        }, executor);
+    }
+
+    void close(Path file, List<UndoHistory.Change> changes, CharSequence text) {
+        executor.execute(() -> {
+            try {
+                appendChanges(file, changes);
+                if (!Files.exists(file)) {
+                    return;
+                }
+                if (Files.size(file) > HEADER_BYTES) {
+                    writeFingerprint(file, Fingerprint.of(text));
+                } else {
+                    Files.delete(file);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    public void flushAndWait() {
+        try {
+            executor.submit(() -> {
+            }).get();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private Path getJournalFile(Path notePath) {
+        String key = notePath.toAbsolutePath().toString();
+        return directory.toPath().resolve(Long.toHexString(Fingerprint.of(key).hash()) + ".journal");
+    }
+
+    private static Fingerprint readFingerprint(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != JOURNAL_FILE_MAGIC || in.readInt() != JOURNAL_FILE_VERSION) {
+                return null;
+            }
+            return new Fingerprint(in.readLong(), in.readInt());
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static void writeFingerprint(Path file, Fingerprint fingerprint) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                .putInt(JOURNAL_FILE_MAGIC)
+                .putInt(JOURNAL_FILE_VERSION)
+                .putLong(fingerprint.hash())
+                .putInt(fingerprint.length())
+                .flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.write(header, 0);
+        }
+    }
+
+    private static void appendChanges(Path file, List<UndoHistory.Change> changes) throws IOException {
+        if (changes.isEmpty()) {
+            return;
+        }
+        if (!Files.exists(file)) {
+            Files.createDirectories(file.getParent());
+            writeFingerprint(file, OPEN_FINGERPRINT);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (UndoHistory.Change change : changes) {
+            int start = out.size();
+            out.writeInt(change.offset());
+            writeString(out, change.removed());
+            writeString(out, change.inserted());
+            out.writeInt(out.size() - start);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes.toByteArray()), channel.size());
+        }
+        if (Files.size(file) > MAX_JOURNAL_BYTES) {
+            dropOldest(file);
+        }
+    }
+
+    private static List<UndoHistory.Change> popChanges(Path file, long maxBytes) throws IOException {
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long start = size;
+            while (start > HEADER_BYTES && size - start < maxBytes) {
+                start -= 4 + readInt(channel, start - 4);
+            }
+            if (start == size) {
+                return List.of();
+            }
+            ByteBuffer records = ByteBuffer.allocate((int) (size - start));
+            channel.read(records, start);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(records.array()));
+            List<UndoHistory.Change> changes = new ArrayList<>();
+            while (in.available() > 0) {
+                changes.add(new UndoHistory.Change(in.readInt(), readString(in), readString(in)));
+                in.readInt();
+            }
+            channel.truncate(start);
+            return Collections.unmodifiableList(changes);
+        }
+    }
+
+    // keeps the newer half of the journal when it grows past its limit
+    private static void dropOldest(Path file) throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = size;
+            while (start > HEADER_BYTES && size - start < MAX_JOURNAL_BYTES / 2) {
+                start -= 4 + readInt(channel, start - 4);
+            }
+            Files.deleteIfExists(tempFile);
+            writeFingerprint(tempFile, OPEN_FINGERPRINT);
+            try (FileChannel temp = FileChannel.open(tempFile, StandardOpenOption.APPEND)) {
+                channel.transferTo(start, size - start, temp);
+            }
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static int readInt(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        channel.read(buffer, position);
+        return buffer.flip().getInt();
+    }
+
+    // utf-8 unless the text holds a lone surrogate, which only utf-16 keeps intact
+    private static void writeString(DataOutputStream out, String text) throws IOException {
+        if (hasLoneSurrogate(text)) {
+            out.writeInt(-text.length());
+            out.writeChars(text);
+        } else {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            char[] chars = new char[-length];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = in.readChar();
+            }
+            return new String(chars);
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static boolean hasLoneSurrogate(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
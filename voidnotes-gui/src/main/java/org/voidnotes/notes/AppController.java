@@ -0,0 +1,551 @@
+package org.voidnotes.notes;
+
+import org.voidnotes.notes.base.ContentIndex;
+import org.voidnotes.notes.base.NoteFingerprints;
+import org.voidnotes.notes.base.NoteIndex;
+import org.voidnotes.notes.base.NotePreviewer;
+import org.voidnotes.notes.base.NoteSaver;
+import org.voidnotes.notes.base.OSUtils;
+import org.voidnotes.notes.base.SearchResult;
+import org.voidnotes.notes.base.SearchService;
+import org.voidnotes.notes.base.Settings;
+import org.voidnotes.notes.base.StartupTimeline;
+import org.voidnotes.notes.base.UndoHistory;
+import org.voidnotes.notes.base.UndoJournal;
+import org.voidnotes.notes.gui.EditorBufferCache;
+import org.voidnotes.notes.gui.EditorFrame;
+import org.voidnotes.notes.gui.GuiFactory;
+import org.voidnotes.notes.gui.NotePrefetcher;
+import org.voidnotes.notes.gui.Palette;
+import org.voidnotes.notes.gui.SearchFrame;
+import org.voidnotes.notes.gui.SearchResultListModel;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.desktop.AppReopenedListener;
+import java.awt.desktop.QuitStrategy;
+import java.awt.event.KeyEvent;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.voidnotes.notes.base.Objects.ARG_ON;
+import static org.voidnotes.notes.base.Objects.LAUNCH_APPEND;
+import static org.voidnotes.notes.base.Objects.LAUNCH_OPEN;
+import static org.voidnotes.notes.base.Objects.SearchItem;
+import static org.voidnotes.notes.base.Objects.SearchItemType.*;
+
+public class AppController {
+    private SearchFrame searchFrame;
+    private EditorFrame editorFrame;
+
+    private JFileChooser notesDirectoryChooser;
+    private File notesDirectory;
+
+    private boolean escapeEnabled = true;
+    private boolean systemTrayEnabled;
+    private boolean reopenEditorOnShow = false;
+    private boolean searchPending = false;
+    private boolean executeOnSearchCompleted = false;
+
+    private final StartupTimeline startupTimeline;
+    private final Settings settings;
+    private final Palette palette;
+    private final SearchService searchService;
+    private final NoteIndex noteIndex;
+    private final ContentIndex contentIndex;
+    private final NoteFingerprints noteFingerprints;
+    private final NoteSaver noteSaver;
+    private final UndoJournal undoJournal;
+    private final EditorBufferCache editorBufferCache;
+    private final NotePrefetcher notePrefetcher;
+    private final NotePreviewer notePreviewer;
+
+    public AppController(StartupTimeline startupTimeline) {
+        this.startupTimeline = startupTimeline;
+        settings = new Settings(SwingUtilities::invokeLater);
+        palette = new Palette(settings.isDarkMode());
+        startupTimeline.mark("settings");
+        noteIndex = new NoteIndex(settings.getConfigDirectory());
+        contentIndex = new ContentIndex(settings.getConfigDirectory());
+        noteIndex.addChangeListener(() -> contentIndex.reconcile(noteIndex));
+        noteFingerprints = new NoteFingerprints();
+        noteSaver = new NoteSaver(noteFingerprints, contentIndex::update, SwingUtilities::invokeLater);
+        undoJournal = new UndoJournal(settings.getConfigDirectory());
+        editorBufferCache = new EditorBufferCache();
+        notePrefetcher = new NotePrefetcher();
+        notePreviewer = new NotePreviewer(SwingUtilities::invokeLater);
+        searchService = new SearchService(() -> notesDirectory.toPath(), noteIndex, contentIndex, startupTimeline, SwingUtilities::invokeLater);
+        startupTimeline.mark("services");
+
+        initializeTaskbar();
+        startupTimeline.mark("taskbar");
+        searchFrame = new SearchFrame(this);
+        startupTimeline.mark("search frame");
+
+        initializeInitialValues();
+        noteIndex.open(notesDirectory.toPath());
+        startupTimeline.mark("note index");
+        contentIndex.open(notesDirectory.toPath(), noteIndex);
+        startupTimeline.mark("content index");
+        initializeSystemTray();
+        startupTimeline.mark("system tray");
+        initializeEscapeKeyListener();
+        initializeDesktop();
+        startupTimeline.mark("desktop");
+    }
+
+    private void initializeDesktop() {
+        if (OSUtils.isMac()) {
+            Desktop.getDesktop().setQuitStrategy(QuitStrategy.CLOSE_ALL_WINDOWS);
+            Desktop.getDesktop().addAppEventListener((AppReopenedListener) e -> showSearchFrame());
+        }
+    }
+
+    private void initializeTaskbar() {
+        if (Taskbar.isTaskbarSupported()) {
+            Taskbar taskbar = Taskbar.getTaskbar();
+            if (taskbar != null && OSUtils.isMac()) {
+                taskbar.setMenu(GuiFactory.createPopupMenu(this));
+                taskbar.setIconImage(GuiFactory.getAppImage());
+            }
+        }
+    }
+
+    // the editor frame is only needed once a note is opened, so it's created then
+    private EditorFrame getEditorFrame() {
+        if (editorFrame == null) {
+            editorFrame = new EditorFrame(this);
+            startupTimeline.markOnce("editor frame");
+        }
+        return editorFrame;
+    }
+
+    private boolean isEditorVisible() {
+        return editorFrame != null && editorFrame.isVisible();
+    }
+
+    private void initializeSystemTray() {
+        systemTrayEnabled = SystemTray.isSupported() && settings.isSystemTrayEnabled();
+        if (!systemTrayEnabled) {
+            return;
+        }
+
+        try {
+            SystemTray.getSystemTray().add(GuiFactory.createTrayIcon(this));
+        } catch (AWTException e) {
+            systemTrayEnabled = false;
+            e.printStackTrace();
+        }
+    }
+
+    private void initializeInitialValues() {
+        notesDirectory = null;
+
+        File dirFile = new File(settings.getDirectory());
+        if (dirFile.exists() && dirFile.isDirectory() && dirFile.canWrite()) {
+            notesDirectory = dirFile;
+        }
+
+        if (notesDirectory == null) {
+            settings.setDirectory(null);
+            notesDirectory = new File(settings.getDirectory());
+            if (!notesDirectory.exists()) {
+                notesDirectory.mkdirs();
+            }
+            settings.save();
+        }
+    }
+
+    private void initializeEscapeKeyListener() {
+        KeyboardFocusManager.getCurrentKeyboardFocusManager().addKeyEventDispatcher(e -> {
+            if (!escapeEnabled || e.getID() != KeyEvent.KEY_PRESSED || e.getKeyCode() != KeyEvent.VK_ESCAPE) {
+                return false;
+            }
+            escapePressed(e.isShiftDown());
+            return true;
+        });
+    }
+
+    public String getSearchInput() {
+        return searchFrame.getSearchInput();
+    }
+
+    private void escapePressed(boolean isShiftDown) {
+        if (isShiftDown && !OSUtils.isMac()) {
+            hide();
+            return;
+        }
+
+        if (isEditorVisible()) {
+            closeEditor();
+            if (editorFrame.getSearchItem().type() == CREATE_NOTE) {
+                updateSearchInput(getSearchInput());
+            }
+            focusSearchFrame();
+            return;
+        }
+        if (searchFrame.isVisible()) {
+            String searchInput = getSearchInput();
+            if (searchInput != null && !searchInput.isBlank()) {
+                searchFrame.setSearchInput("");
+            } else {
+                minimizeSearchFrame();
+            }
+        }
+    }
+
+    private void minimizeSearchFrame() {
+        searchFrame.setState(Frame.ICONIFIED);
+    }
+
+    public SearchFrame getSearchFrame() {
+        return searchFrame;
+    }
+
+    public void start(boolean printStartupTimeline) {
+        showSearchFrame();
+        SwingUtilities.invokeLater(() -> {
+            startupTimeline.mark("search frame shown");
+            if (printStartupTimeline) {
+                System.out.print(startupTimeline.format());
+            }
+        });
+    }
+
+    public void showSearchFrame() {
+        searchFrame.setVisible(true);
+        focusSearchFrame();
+        reopenEditorIfNecessary();
+    }
+
+    public void focusSearchFrame() {
+        searchFrame.toFront();
+        searchFrame.requestFocus();
+        searchFrame.focusSearchInput();
+    }
+
+    public void reopenEditorIfNecessary() {
+        if (reopenEditorOnShow) {
+            reopenEditorOnShow = false;
+            editorFrame.setVisible(true);
+            editorFrame.toFront();
+            editorFrame.requestFocus();
+        }
+    }
+
+    public void closeSearchFrame() {
+        closeEditor();
+        if (!systemTrayEnabled) {
+            exit();
+        }
+        searchFrame.dispose();
+    }
+
+    public void exit() {
+        closeEditor();
+        closeHiddenEditor();
+        if (editorFrame != null) {
+            editorFrame.closeFile();
+        }
+        editorBufferCache.clear();
+        noteSaver.flushAndWait();
+        undoJournal.flushAndWait();
+        contentIndex.flush();
+        noteIndex.saveIndexFile();
+        settings.flushAndWait();
+        System.exit(0);
+    }
+
+    public void showEditorFrame(SearchItem searchItem) {
+        File file = searchItem.path().toFile();
+        if (!file.exists()) {
+            try {
+                File parentFile = file.getParentFile();
+                if (!parentFile.exists()) {
+                    parentFile.mkdirs();
+                }
+                Files.createFile(searchItem.path());
+                noteIndex.update(searchItem.path());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        noteSaver.flushAndWait(searchItem.path());
+        getEditorFrame().openFile(notesDirectory, searchItem);
+        editorFrame.setVisible(true);
+    }
+
+    public void closeEditor() {
+        if (!isEditorVisible()) {
+            return;
+        }
+        closeEditorFile();
+        editorFrame.dispose();
+    }
+
+    // a hidden editor keeps its note open until it's shown again
+    private void closeHiddenEditor() {
+        if (reopenEditorOnShow) {
+            reopenEditorOnShow = false;
+            closeEditorFile();
+        }
+    }
+
+    private void closeEditorFile() {
+        if (!settings.isSaveModeImmediate() && editorFrame.isModified()) {
+            noteSaver.contentChanged(editorFrame.getSearchItem().path(), editorFrame::takeSnapshot);
+        }
+        noteSaver.flush();
+        editorFrame.closeFile();
+    }
+
+    public void executeSearchInput(SearchItem searchItem) {
+        if (searchItem == null || searchItem.type() == INVALID) {
+            return;
+        }
+
+        if (searchItem.type() == CREATE_NOTE || searchItem.type() == OPEN_NOTE) {
+            showEditorFrame(searchItem);
+            return;
+        }
+
+        searchFrame.setSearchInput("");
+        if (searchItem.type() == CHOOSE_DIR || searchItem.type() == START_FILE_EXPLORER) {
+            switch (searchItem.type()) {
+                case CHOOSE_DIR -> chooseNotesDirectory();
+                case START_FILE_EXPLORER -> OSUtils.openFileManager(notesDirectory);
+            }
+            return;
+        }
+
+        switch (searchItem.type()) {
+            case DARK_MODE -> {
+                settings.setDarkMode(ARG_ON.equalsIgnoreCase(searchItem.commandArgument()));
+                palette.setDarkMode(settings.isDarkMode());
+            }
+            case ALWAYS_ON_TOP -> {
+                settings.setAlwaysOnTop(ARG_ON.equalsIgnoreCase(searchItem.commandArgument()));
+                searchFrame.setAlwaysOnTop(settings.isAlwaysOnTop());
+            }
+            case TAB_SIZE -> {
+                settings.setTabSize(Integer.parseInt(searchItem.commandArgument()));
+                if (editorFrame != null) {
+                    editorFrame.setTabSize(settings.getTabSize());
+                }
+            }
+            case PREVIEW -> {
+                settings.setPreviewEnabled(ARG_ON.equalsIgnoreCase(searchItem.commandArgument()));
+                searchFrame.setPreviewVisible(settings.isPreviewEnabled());
+            }
+        }
+        settings.save();
+        showSearchFrame();
+    }
+
+    // launch arguments, either of this process or forwarded by a later launch
+    public void executeCommand(List<String> command) {
+        String action = command.isEmpty() ? "" : command.get(0);
+        Path path = command.size() > 1 ? resolveNote(command.get(1)) : null;
+        if (action.equals(LAUNCH_APPEND) && path != null && command.size() > 2) {
+            appendToNote(path, String.join(" ", command.subList(2, command.size())));
+            return;
+        }
+
+        if (action.equals(LAUNCH_OPEN) && path != null) {
+            closeHiddenEditor();
+            closeEditor();
+        }
+        showSearchFrame();
+        if (action.equals(LAUNCH_OPEN) && path != null) {
+            String label = path.getFileName().toString();
+            label = label.substring(0, label.length() - NoteIndex.NOTE_EXTENSION.length());
+            showEditorFrame(new SearchItem(path.toFile().exists() ? OPEN_NOTE : CREATE_NOTE, label, null, path));
+        }
+    }
+
+    private Path resolveNote(String name) {
+        String fileName = name.toLowerCase().endsWith(NoteIndex.NOTE_EXTENSION) ? name : name + NoteIndex.NOTE_EXTENSION;
+        Path directory = notesDirectory.toPath().toAbsolutePath().normalize();
+        Path path = directory.resolve(fileName).normalize();
+        return path.startsWith(directory) && !path.equals(directory) ? path : null;
+    }
+
+    private void appendToNote(Path path, String line) {
+        boolean editorOpen = isEditorVisible() || reopenEditorOnShow;
+        if (editorOpen && editorFrame.getSearchItem().path().toAbsolutePath().normalize().equals(path)) {
+            if (editorFrame.appendLine(line)) {
+                // saved right away whatever the save mode, a hidden editor might never be closed normally
+                noteSaver.contentChanged(editorFrame.getSearchItem().path(), editorFrame::takeSnapshot);
+                noteSaver.flush();
+                return;
+            }
+            closeEditor();
+            closeHiddenEditor();
+        }
+        EditorBufferCache.Buffer buffer = editorBufferCache.take(path);
+        if (buffer != null) {
+            editorBufferCache.discard(buffer);
+        }
+        boolean created = !path.toFile().exists();
+        if (created) {
+            path.getParent().toFile().mkdirs();
+        }
+        noteSaver.appendLine(path, line);
+        if (created) {
+            noteSaver.flushAndWait();
+            noteIndex.update(path);
+        }
+    }
+
+    public void updateSearchInput(String text) {
+        startupTimeline.markOnce("first search input");
+        searchPending = true;
+        searchService.search(text, this::showSearchResult);
+    }
+
+    private void showSearchResult(SearchResult searchResult) {
+        searchPending = false;
+
+        JList<SearchItem> noteList = searchFrame.getNoteList();
+        SearchResultListModel noteListModel = searchFrame.getNoteListModel();
+        noteList.clearSelection();
+        noteListModel.setSearchResult(searchResult);
+
+        if (!noteListModel.isEmpty()) {
+            noteList.setSelectedIndex(0);
+            noteList.ensureIndexIsVisible(0);
+        }
+
+        if (executeOnSearchCompleted) {
+            executeOnSearchCompleted = false;
+            executeSearchSelection();
+        }
+    }
+
+    public void loadMoreSearchItems() {
+        searchFrame.getNoteListModel().loadMore();
+    }
+
+    public void executeSearchSelection() {
+        if (searchPending) {
+            executeOnSearchCompleted = true;
+            return;
+        }
+        executeSearchInput(searchFrame.getNoteList().getSelectedValue());
+    }
+
+    public File getNotesDirectory() {
+        return notesDirectory;
+    }
+
+    public NoteIndex getNoteIndex() {
+        return noteIndex;
+    }
+
+    public ContentIndex getContentIndex() {
+        return contentIndex;
+    }
+
+    public void searchSelectionChanged(SearchItem item) {
+        if (item != null && item.type() == OPEN_NOTE && !editorBufferCache.contains(item.path())) {
+            notePrefetcher.prefetch(item.path());
+        }
+        if (settings.isPreviewEnabled()) {
+            if (item != null && item.type() == OPEN_NOTE) {
+                notePreviewer.preview(item.path(), item.contentOffset(), searchFrame::showPreview);
+            } else {
+                notePreviewer.cancel();
+                searchFrame.showPreview(null);
+            }
+        }
+    }
+
+    private JFileChooser getNotesDirectoryChooser() {
+        if (notesDirectoryChooser != null) {
+            return notesDirectoryChooser;
+        }
+        notesDirectoryChooser = new JFileChooser();
+        notesDirectoryChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        notesDirectoryChooser.setDialogTitle("Choose notes directory");
+        notesDirectoryChooser.setApproveButtonText("Choose");
+        notesDirectoryChooser.setApproveButtonToolTipText("Choose notes directory");
+        notesDirectoryChooser.setMultiSelectionEnabled(false);
+        notesDirectoryChooser.setFileHidingEnabled(false);
+        notesDirectoryChooser.setAcceptAllFileFilterUsed(false);
+        notesDirectoryChooser.setFileFilter(new javax.swing.filechooser.FileFilter() {
+            @Override
+            public boolean accept(File f) {
+                return f.isDirectory();
+            }
+
+            @Override
+            public String getDescription() {
+                return "Directories";
+            }
+        });
+        notesDirectoryChooser.setCurrentDirectory(notesDirectory);
+        notesDirectoryChooser.addActionListener(e -> {
+            if (e.getActionCommand().equals(JFileChooser.APPROVE_SELECTION)) {
+                notesDirectory = notesDirectoryChooser.getSelectedFile();
+                settings.setDirectory(notesDirectory.getAbsolutePath());
+                settings.save();
+                noteIndex.open(notesDirectory.toPath());
+                contentIndex.open(notesDirectory.toPath(), noteIndex);
+            }
+        });
+        return notesDirectoryChooser;
+    }
+
+    private void chooseNotesDirectory() {
+        escapeEnabled = false;
+        getNotesDirectoryChooser().showOpenDialog(searchFrame);
+        escapeEnabled = true;
+    }
+
+    public void noteOpened(Path path, CharSequence text) {
+        noteSaver.fileOpened(path, text);
+    }
+
+    public UndoHistory openUndoHistory(Path path, CharSequence text) {
+        return undoJournal.open(path, text);
+    }
+
+    public EditorBufferCache getEditorBufferCache() {
+        return editorBufferCache;
+    }
+
+    public NotePrefetcher getNotePrefetcher() {
+        return notePrefetcher;
+    }
+
+    public boolean isNoteUnchanged(Path path) {
+        return noteSaver.isFileUnchanged(path);
+    }
+
+    public void contentChanged(Path path, Supplier<NoteSaver.Snapshot> snapshotSupplier) {
+        if (settings.isSaveModeImmediate()) {
+            noteSaver.contentChanged(path, snapshotSupplier);
+        }
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    public Palette getPalette() {
+        return palette;
+    }
+
+    public void hide() {
+        noteSaver.flush();
+        reopenEditorOnShow = isEditorVisible();
+        if (editorFrame != null) {
+            editorFrame.setVisible(false);
+        }
+        minimizeSearchFrame();
+    }
+}
@@ -0,0 +1,35 @@
+package org.voidnotes.notes;
+
+import org.voidnotes.notes.base.Objects;
+import org.voidnotes.notes.base.Settings;
+import org.voidnotes.notes.base.SingleInstance;
+import org.voidnotes.notes.base.StartupTimeline;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class VoidNotes {
+    private static final String ARG_STARTUP = "--startup";
+
+    public static void main(String[] args) {
+        StartupTimeline startupTimeline = new StartupTimeline();
+        List<String> command = new ArrayList<>(List.of(args));
+        boolean printStartupTimeline = command.remove(ARG_STARTUP);
+
+        // a running instance serves the command from its warm caches, without loading AWT here at all
+        SingleInstance singleInstance = new SingleInstance(Settings.getDefaultConfigDirectory());
+        if (!singleInstance.claim(command)) {
+            return;
+        }
+        startupTimeline.mark("single instance check");
+
+        System.setProperty("apple.awt.application.name", Objects.APP_NAME);
+        AppController controller = new AppController(startupTimeline);
+        controller.start(printStartupTimeline);
+        if (!command.isEmpty()) {
+            SwingUtilities.invokeLater(() -> controller.executeCommand(command));
+        }
+        singleInstance.serve(controller::executeCommand, SwingUtilities::invokeLater);
+    }
+}
\ No newline at end of file
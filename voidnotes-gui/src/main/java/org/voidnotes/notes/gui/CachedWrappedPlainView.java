@@ -0,0 +1,165 @@
+package org.voidnotes.notes.gui;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.ViewFactory;
+import javax.swing.text.WrappedPlainView;
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+
+public class CachedWrappedPlainView extends WrappedPlainView {
+    private static final class Breaks {
+        private int[] starts = new int[8];
+        private int count = 1;
+        private int[] resync;
+
+        private void add(int start) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+            }
+            starts[count++] = start;
+            if (resync == null) {
+                return;
+            }
+            int index = Arrays.binarySearch(resync, start);
+            if (index >= 0) {
+                int remaining = resync.length - index - 1;
+                if (count + remaining > starts.length) {
+                    starts = Arrays.copyOf(starts, count + remaining);
+                }
+                System.arraycopy(resync, index + 1, starts, count, remaining);
+                count += remaining;
+                resync = null;
+            } else if (-index - 1 == resync.length) {
+                resync = null;
+            }
+        }
+
+        private void edited(int offset, int removedLength, int delta) {
+            int line = Arrays.binarySearch(starts, 0, count, offset);
+            line = line >= 0 ? line : -line - 2;
+            int kept = Math.max(1, line);
+            int first = line + 1;
+            while (first < count && starts[first] < offset + removedLength) {
+                first++;
+            }
+            resync = first < count ? new int[count - first] : null;
+            for (int i = first; i < count; i++) {
+                resync[i - first] = starts[i] + delta;
+            }
+            count = kept;
+        }
+    }
+
+    // kept on the document so a view created for a reopened note starts out with its breaks
+    private static final class LayoutCache {
+        private final Map<Element, Breaks> breaksByLine = new WeakHashMap<>();
+        private Font font;
+        private int tabSize;
+        private int width;
+    }
+
+    private static final int BREAK_LOOKAHEAD = 64;
+
+    public CachedWrappedPlainView(Element element, boolean wordWrap) {
+        super(element, wordWrap);
+    }
+
+    @Override
+    protected int calculateBreakPosition(int p0, int p1) {
+        Element root = getElement();
+        Element line = root.getElement(root.getElementIndex(p0));
+        int lineStart = line.getStartOffset();
+        if (line.getEndOffset() != p1) {
+            return super.calculateBreakPosition(p0, p1);
+        }
+
+        LayoutCache cache = getLayoutCache();
+        Font currentFont = getContainer() != null ? getContainer().getFont() : null;
+        if (!Objects.equals(currentFont, cache.font) || getTabSize() != cache.tabSize || getWidth() != cache.width) {
+            cache.breaksByLine.clear();
+            cache.font = currentFont;
+            cache.tabSize = getTabSize();
+            cache.width = getWidth();
+        }
+
+        Breaks breaks = cache.breaksByLine.computeIfAbsent(line, l -> new Breaks());
+        int index = Arrays.binarySearch(breaks.starts, 0, breaks.count, p0 - lineStart);
+        if (index >= 0 && index + 1 < breaks.count) {
+            return lineStart + breaks.starts[index + 1];
+        }
+        int position = calculateBoundedBreakPosition(p0, p1);
+        if (index == breaks.count - 1 && position > p0) {
+            breaks.add(position - lineStart);
+        }
+        return position;
+    }
+
+    private int calculateBoundedBreakPosition(int p0, int p1) {
+        // a wrapped line never holds more chars than fit into the width, so don't load the rest of the paragraph
+        int limit = p0 + Math.max(getWidth(), 1) * 2 + BREAK_LOOKAHEAD;
+        if (limit < p1) {
+            int position = super.calculateBreakPosition(p0, limit);
+            if (position < limit - BREAK_LOOKAHEAD) {
+                return position;
+            }
+        }
+        return super.calculateBreakPosition(p0, p1);
+    }
+
+    @Override
+    public void insertUpdate(DocumentEvent e, Shape a, ViewFactory f) {
+        invalidateBreaks(e, 0, e.getLength());
+        super.insertUpdate(e, a, f);
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent e, Shape a, ViewFactory f) {
+        invalidateBreaks(e, e.getLength(), -e.getLength());
+        super.removeUpdate(e, a, f);
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent e, Shape a, ViewFactory f) {
+        getLayoutCache().breaksByLine.clear();
+        super.changedUpdate(e, a, f);
+    }
+
+    private void invalidateBreaks(DocumentEvent e, int removedLength, int delta) {
+        if (e.getChange(getElement()) != null) {
+            return;
+        }
+        Element root = getElement();
+        Element line = root.getElement(root.getElementIndex(e.getOffset()));
+        Breaks breaks = getLayoutCache().breaksByLine.get(line);
+        if (breaks != null) {
+            breaks.edited(e.getOffset() - line.getStartOffset(), removedLength, delta);
+        }
+    }
+
+    private LayoutCache getLayoutCache() {
+        Document document = getDocument();
+        LayoutCache cache = (LayoutCache) document.getProperty(LayoutCache.class);
+        if (cache == null) {
+            cache = new LayoutCache();
+            document.putProperty(LayoutCache.class, cache);
+        }
+        return cache;
+    }
+
+    @Override
+    protected void drawLine(int p0, int p1, Graphics2D g, float x, float y) {
+        Rectangle clip = g.getClipBounds();
+        if (clip != null) {
+            FontMetrics metrics = g.getFontMetrics();
+            if (y + metrics.getDescent() < clip.y || y - metrics.getAscent() > clip.y + clip.height) {
+                return;
+            }
+        }
+        super.drawLine(p0, p1, g, x, y);
+    }
+}
@@ -0,0 +1,66 @@
+package org.voidnotes.notes.gui;
+
+import org.voidnotes.notes.base.UndoHistory;
+
+import java.awt.*;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class EditorBufferCache {
+    private static final long MAX_CACHED_CHARS = 8 * 1024 * 1024;
+
+    public record Buffer(NoteDocument document, UndoHistory history, int caretPosition, Point viewPosition) {
+        private void close() {
+            history.close(document.getSnapshot());
+        }
+    }
+
+    private final Map<Path, Buffer> buffers = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedChars = 0;
+
+    public void put(Path path, Buffer buffer) {
+        Buffer previous = buffers.remove(path.toAbsolutePath());
+        if (previous != null) {
+            cachedChars -= previous.document().getLength();
+            previous.close();
+        }
+        if (buffer.document().getLength() > MAX_CACHED_CHARS) {
+            buffer.close();
+            return;
+        }
+        buffers.put(path.toAbsolutePath(), buffer);
+        cachedChars += buffer.document().getLength();
+
+        Iterator<Buffer> iterator = buffers.values().iterator();
+        while (cachedChars > MAX_CACHED_CHARS && iterator.hasNext()) {
+            Buffer eldest = iterator.next();
+            iterator.remove();
+            cachedChars -= eldest.document().getLength();
+            eldest.close();
+        }
+    }
+
+    public boolean contains(Path path) {
+        return buffers.containsKey(path.toAbsolutePath());
+    }
+
+    public Buffer take(Path path) {
+        Buffer buffer = buffers.remove(path.toAbsolutePath());
+        if (buffer != null) {
+            cachedChars -= buffer.document().getLength();
+        }
+        return buffer;
+    }
+
+    public void discard(Buffer buffer) {
+        buffer.close();
+    }
+
+    public void clear() {
+        buffers.values().forEach(Buffer::close);
+        buffers.clear();
+        cachedChars = 0;
+    }
+}
@@ -1,6 +1,7 @@
 package org.voidnotes.notes.gui;
 
-import org.voidnotes.notes.base.AppController;
+import org.voidnotes.notes.AppController;
+import org.voidnotes.notes.base.NoteSaver;
 import org.voidnotes.notes.base.Settings;
 import org.voidnotes.notes.base.Objects;
 
@@ -16,6 +17,7 @@ public class EditorFrame extends JDialog {
     private final AppController controller;
 
     private EditorPanel editorPanel;
+    private String noteTitle;
 
     private Objects.SearchItem searchItem;
 
@@ -30,7 +32,11 @@ public class EditorFrame extends JDialog {
         setTitle("Editor");
         setModal(true);
         setSize(controller.getSettings().getEditorFrameWidth(), controller.getSettings().getEditorFrameHeight());
-        setLocation(controller.getSettings().getEditorFrameX(), controller.getSettings().getEditorFrameY());
+        if (controller.getSettings().getEditorFrameX() == Settings.FRAME_POSITION_UNSET || controller.getSettings().getEditorFrameY() == Settings.FRAME_POSITION_UNSET) {
+            setLocationRelativeTo(null);
+        } else {
+            setLocation(controller.getSettings().getEditorFrameX(), controller.getSettings().getEditorFrameY());
+        }
         setMinimumSize(new Dimension(Settings.MIN_EDITOR_FRAME_WIDTH, Settings.MIN_EDITOR_FRAME_HEIGHT));
         setDefaultCloseOperation(DO_NOTHING_ON_CLOSE);
         GuiFactory.setBackgroundColor(controller, this);
@@ -57,23 +63,43 @@ public class EditorFrame extends JDialog {
     }
 
     private void initializeComponents() {
-        editorPanel = new EditorPanel(controller);
+        editorPanel = new EditorPanel(controller, this::updateTitle);
         getContentPane().add(editorPanel, BorderLayout.CENTER);
     }
 
     public void openFile(File notesDirectory, Objects.SearchItem searchItem) {
         this.searchItem = searchItem;
         String title = searchItem.path().toFile().getAbsolutePath().substring(notesDirectory.getAbsolutePath().length() + 1);
-        title = title.substring(0, title.lastIndexOf('.'));
-        setTitle(title);
+        noteTitle = title.substring(0, title.lastIndexOf('.'));
         editorPanel.openFile(searchItem.path());
+        updateTitle();
+    }
+
+    private void updateTitle() {
+        setTitle(editorPanel.isReadOnly() ? noteTitle + " (read-only)" : noteTitle);
+    }
+
+    public void setTabSize(int tabSize) {
+        editorPanel.setTabSize(tabSize);
+    }
+
+    public boolean appendLine(String line) {
+        return editorPanel.appendLine(line);
+    }
+
+    public void closeFile() {
+        editorPanel.closeFile();
     }
 
     public Objects.SearchItem getSearchItem() {
         return searchItem;
     }
 
-    public String getText() {
-        return editorPanel.getText();
+    public boolean isModified() {
+        return editorPanel.isModified();
+    }
+
+    public NoteSaver.Snapshot takeSnapshot() {
+        return editorPanel.takeSnapshot();
     }
 }
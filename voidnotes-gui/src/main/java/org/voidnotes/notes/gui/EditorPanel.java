@@ -0,0 +1,280 @@
+package org.voidnotes.notes.gui;
+
+import org.voidnotes.notes.AppController;
+import org.voidnotes.notes.base.MappedTextReader;
+import org.voidnotes.notes.base.NoteSaver;
+import org.voidnotes.notes.base.OSUtils;
+import org.voidnotes.notes.base.Settings;
+import org.voidnotes.notes.base.Threads;
+import org.voidnotes.notes.base.UndoHistory;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.PlainDocument;
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class EditorPanel extends JPanel {
+    static final long LAZY_LOAD_THRESHOLD = 4 * 1024 * 1024;
+    private static final long READ_ONLY_THRESHOLD = 32 * 1024 * 1024;
+    private static final int FIRST_CHUNK_CHARS = 128 * 1024;
+    private static final int CHUNK_CHARS = 1024 * 1024;
+
+    private final AppController controller;
+
+    private Path path;
+    private boolean loading;
+    private boolean readOnly;
+    private int loadGeneration = 0;
+    private int dirtyStart = Integer.MAX_VALUE;
+
+    private JTextArea editor;
+    private JScrollPane editorScrollPane;
+    private DocumentListener documentListener;
+    private NoteUndoManager undoManager;
+    private final Runnable readOnlyListener;
+
+    public EditorPanel(AppController controller, Runnable readOnlyListener) {
+        super();
+        this.controller = controller;
+        this.readOnlyListener = readOnlyListener;
+        initializePanel();
+        initializeComponents();
+    }
+
+    private void initializePanel() {
+        GuiFactory.setBackgroundColor(controller, this);
+        setLayout(new BorderLayout());
+    }
+
+    private void initializeComponents() {
+        editor = GuiFactory.createTextArea(controller);
+        documentListener = new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                contentChanged(e.getOffset());
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                contentChanged(e.getOffset());
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        };
+        editorScrollPane = GuiFactory.createScrollPane(controller, editor, true);
+        add(editorScrollPane, BorderLayout.CENTER);
+
+        undoManager = new NoteUndoManager(editor);
+
+        editor.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.isControlDown() || (OSUtils.isMac() && e.isMetaDown())) {
+                    if (e.getKeyCode() == KeyEvent.VK_Z) {
+                        undoManager.undo();
+                    } else if (e.getKeyCode() == KeyEvent.VK_Y) {
+                        undoManager.redo();
+                    } else if (e.getKeyCode() == KeyEvent.VK_M) {
+                        controller.getSettings().setEditorFontMonospaced(!controller.getSettings().isEditorFontMonospaced());
+                        saveFontSettings();
+                    } else if (e.getKeyCode() == KeyEvent.VK_PLUS || e.getKeyCode() == KeyEvent.VK_ADD || (OSUtils.isMac() && e.getKeyCode() == KeyEvent.VK_CLOSE_BRACKET)) {
+                        controller.getSettings().setEditorFontSize(controller.getSettings().getEditorFontSize() + 1);
+                        saveFontSettings();
+                    } else if (e.getKeyCode() == KeyEvent.VK_MINUS || e.getKeyCode() == KeyEvent.VK_SUBTRACT || (OSUtils.isMac() && e.getKeyCode() == KeyEvent.VK_SLASH)) {
+                        if (controller.getSettings().getEditorFontSize() > Settings.MIN_EDITOR_FONT_SIZE) {
+                            controller.getSettings().setEditorFontSize(controller.getSettings().getEditorFontSize() - 1);
+                            saveFontSettings();
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    private void contentChanged(int offset) {
+        if (!loading) {
+            dirtyStart = Math.min(dirtyStart, offset);
+            controller.contentChanged(path, this::takeSnapshot);
+        }
+    }
+
+    private void saveFontSettings() {
+        controller.getSettings().save();
+        editor.setFont(GuiFactory.getEditorFont(controller));
+    }
+
+    private void setDocument(NoteDocument document) {
+        editor.getDocument().removeDocumentListener(documentListener);
+        document.addDocumentListener(documentListener);
+        document.setDocumentFilter(undoManager);
+        document.putProperty(PlainDocument.tabSizeAttribute, controller.getSettings().getTabSize());
+        editor.setDocument(document);
+    }
+
+    public void openFile(Path path) {
+        closeFile();
+        this.path = path;
+        int generation = ++loadGeneration;
+        EditorBufferCache.Buffer buffer = controller.getEditorBufferCache().take(path);
+        if (buffer != null) {
+            if (controller.isNoteUnchanged(path)) {
+                restoreBuffer(buffer);
+                return;
+            }
+            controller.getEditorBufferCache().discard(buffer);
+        }
+        NoteDocument prefetched = controller.getNotePrefetcher().take(path);
+        if (prefetched != null) {
+            readOnly = false;
+            setDocument(prefetched);
+            controller.noteOpened(path, prefetched.getSnapshot());
+            editor.setCaretPosition(0);
+            loadFinished();
+            return;
+        }
+
+        setDocument(new NoteDocument());
+        loading = true;
+        readOnly = false;
+        try {
+            if (Files.size(path) <= LAZY_LOAD_THRESHOLD) {
+                String text = Files.readString(path);
+                editor.setText(text);
+                controller.noteOpened(path, text);
+                editor.setCaretPosition(0);
+                loadFinished();
+                return;
+            }
+
+            MappedTextReader reader = new MappedTextReader(path);
+            readOnly = reader.size() > READ_ONLY_THRESHOLD;
+            editor.setEditable(false);
+            String firstChunk = reader.read(FIRST_CHUNK_CHARS);
+            editor.setText(firstChunk != null ? firstChunk : "");
+            editor.setCaretPosition(0);
+            Threads.startDaemonThread("note-loader", () -> loadRemaining(reader, generation));
+        } catch (IOException e) {
+            loading = false;
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void loadRemaining(MappedTextReader reader, int generation) {
+        try (reader) {
+            String chunk;
+            while ((chunk = reader.read(CHUNK_CHARS)) != null) {
+                String text = chunk;
+                boolean[] current = new boolean[1];
+                SwingUtilities.invokeAndWait(() -> {
+                    current[0] = generation == loadGeneration;
+                    if (current[0]) {
+                        appendText(text);
+                    }
+                });
+                if (!current[0]) {
+                    return;
+                }
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (generation == loadGeneration) {
+                    controller.noteOpened(path, ((NoteDocument) editor.getDocument()).getSnapshot());
+                    loadFinished();
+                }
+            });
+        } catch (Exception e) {
+            // malformed or unreadable, keep the part that was loaded but never save it back
+            e.printStackTrace();
+            SwingUtilities.invokeLater(() -> {
+                if (generation == loadGeneration) {
+                    readOnly = true;
+                    loadFinished();
+                    readOnlyListener.run();
+                }
+            });
+        }
+    }
+
+    private void appendText(String text) {
+        Document document = editor.getDocument();
+        try {
+            document.insertString(document.getLength(), text, null);
+        } catch (BadLocationException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void loadFinished() {
+        loading = false;
+        dirtyStart = Integer.MAX_VALUE;
+        editor.setEditable(!readOnly);
+        if (!readOnly) {
+            undoManager.setHistory(controller.openUndoHistory(path, ((NoteDocument) editor.getDocument()).getSnapshot()));
+        }
+    }
+
+    private void restoreBuffer(EditorBufferCache.Buffer buffer) {
+        setDocument(buffer.document());
+        loading = false;
+        readOnly = false;
+        dirtyStart = Integer.MAX_VALUE;
+        editor.setEditable(true);
+        undoManager.setHistory(buffer.history());
+        editor.setCaretPosition(buffer.caretPosition());
+        SwingUtilities.invokeLater(() -> editorScrollPane.getViewport().setViewPosition(buffer.viewPosition()));
+    }
+
+    public void closeFile() {
+        // stops a background load of the closed note
+        loadGeneration++;
+        UndoHistory history = undoManager.getHistory();
+        if (history == null) {
+            return;
+        }
+        undoManager.setHistory(null);
+        controller.getEditorBufferCache().put(path, new EditorBufferCache.Buffer((NoteDocument) editor.getDocument(), history,
+                editor.getCaretPosition(), editorScrollPane.getViewport().getViewPosition()));
+    }
+
+    public void setTabSize(int tabSize) {
+        editor.setTabSize(tabSize);
+    }
+
+    public boolean appendLine(String line) {
+        if (loading || readOnly) {
+            return false;
+        }
+        Document document = editor.getDocument();
+        try {
+            int length = document.getLength();
+            boolean lineStart = length == 0 || document.getText(length - 1, 1).equals("\n");
+            document.insertString(length, (lineStart ? "" : "\n") + line + "\n", null);
+        } catch (BadLocationException e) {
+            e.printStackTrace();
+        }
+        return true;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public boolean isModified() {
+        return dirtyStart != Integer.MAX_VALUE;
+    }
+
+    public NoteSaver.Snapshot takeSnapshot() {
+        NoteSaver.Snapshot snapshot = new NoteSaver.Snapshot(((NoteDocument) editor.getDocument()).getSnapshot(), dirtyStart);
+        dirtyStart = Integer.MAX_VALUE;
+        return snapshot;
+    }
+}
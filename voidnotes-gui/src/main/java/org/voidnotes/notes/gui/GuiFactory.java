@@ -1,6 +1,6 @@
 package org.voidnotes.notes.gui;
 
-import org.voidnotes.notes.base.AppController;
+import org.voidnotes.notes.AppController;
 import org.voidnotes.notes.base.OSUtils;
 import org.voidnotes.notes.base.Objects;
 
@@ -18,23 +18,7 @@ public class GuiFactory {
     private static final Image APP_IMAGE = Toolkit.getDefaultToolkit().getImage(Objects.class.getResource("/logo.png"));
     private static final Image APP_IMAGE_MAC = Toolkit.getDefaultToolkit().getImage(Objects.class.getResource("/logo_mac.png"));
 
-    private static final Color DARK_MODE_BORDER_COLOR = Color.DARK_GRAY;
-    private static final Color LIGHT_MODE_BORDER_COLOR = Color.LIGHT_GRAY;
-
-    private static final Color DARK_MODE_BACKGROUND_COLOR = new Color(0x1E1E1E);
-    private static final Color LIGHT_MODE_BACKGROUND_COLOR = Color.WHITE;
-
-    private static final Color DARK_MODE_TEXT_COLOR = new Color(0xCCCCCC);
-    private static final Color LIGHT_MODE_TEXT_COLOR = new Color(0x333333);
-
-    private static final Color DARK_MODE_TEXT_CARET_COLOR = new Color(0xEEEEEE);
-    private static final Color LIGHT_MODE_TEXT_CARET_COLOR = Color.BLACK;
-
-    private static final Color DARK_MODE_SELECTION_COLOR = new Color(0x999999);
-    private static final Color LIGHT_MODE_SELECTION_COLOR = new Color(0xCCCCCC);
-
-    private static final Color DARK_MODE_SELECTED_TEXT_COLOR = Color.BLACK;
-    private static final Color LIGHT_MODE_SELECTED_TEXT_COLOR = Color.BLACK;
+    private static final int PREVIEW_ROWS = 8;
 
     private static final Font EDITOR_FONT_MONO = new Font(Font.MONOSPACED, Font.PLAIN, 12);
     private static final Font EDITOR_FONT_SANS_SERIF = new Font(Font.SANS_SERIF, Font.PLAIN, 12);
@@ -60,22 +44,35 @@ public class GuiFactory {
         JList<T> list = new JList<>();
         setBackgroundColor(controller, list);
         setBorder(controller, list, false);
-        list.setSelectionBackground(controller.getSettings().isDarkMode() ? DARK_MODE_SELECTION_COLOR : LIGHT_MODE_SELECTION_COLOR);
+        controller.getPalette().style(list, (l, palette) -> l.setSelectionBackground(palette.getSelectionColor()));
         return list;
     }
 
     public static JTextArea createTextArea(AppController controller) {
-        JTextArea textArea = new JTextArea();
+        JTextArea textArea = new JTextArea(new NoteDocument());
+        textArea.setUI(new NoteTextAreaUI());
         setBackgroundColor(controller, textArea);
         setTextColor(controller, textArea);
         setBorder(controller, textArea, false);
-        textArea.setSelectionColor(controller.getSettings().isDarkMode() ? DARK_MODE_SELECTION_COLOR : LIGHT_MODE_SELECTION_COLOR);
         textArea.setFont(getEditorFont(controller));
         textArea.setLineWrap(true);
         textArea.setWrapStyleWord(true);
         return textArea;
     }
 
+    public static JTextArea createPreviewArea(AppController controller) {
+        JTextArea textArea = new JTextArea(PREVIEW_ROWS, 0);
+        setBackgroundColor(controller, textArea);
+        setTextColor(controller, textArea);
+        setBorder(controller, textArea, false);
+        textArea.setFont(getEditorFont(controller));
+        textArea.setEditable(false);
+        textArea.setFocusable(false);
+        textArea.setLineWrap(true);
+        textArea.setWrapStyleWord(true);
+        return textArea;
+    }
+
     public static Font getEditorFont(AppController controller) {
         Font font = controller.getSettings().isEditorFontMonospaced() ? EDITOR_FONT_MONO : EDITOR_FONT_SANS_SERIF;
         if (font.getSize() != controller.getSettings().getEditorFontSize()) {
@@ -87,7 +84,7 @@ public class GuiFactory {
     public static JScrollPane createScrollPane(AppController controller, Component component, boolean verticalScrollBarAlways) {
         JScrollPane scrollPane = new JScrollPane(component);
         setBackgroundColor(controller, scrollPane);
-        scrollPane.setBorder(new LineBorder(controller.getSettings().isDarkMode() ? DARK_MODE_BORDER_COLOR : LIGHT_MODE_BORDER_COLOR, 1, true));
+        controller.getPalette().style(scrollPane, (pane, palette) -> pane.setBorder(new LineBorder(palette.getBorderColor(), 1, true)));
 
         scrollPane.setVerticalScrollBarPolicy(verticalScrollBarAlways ? JScrollPane.VERTICAL_SCROLLBAR_ALWAYS : JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
         setBackgroundColor(controller, scrollPane.getVerticalScrollBar());
@@ -127,39 +124,26 @@ public class GuiFactory {
     }
 
     public static void setBackgroundColor(AppController controller, Component component) {
-        if (controller.getSettings().isDarkMode()) {
-            component.setBackground(DARK_MODE_BACKGROUND_COLOR);
-        } else {
-            component.setBackground(LIGHT_MODE_BACKGROUND_COLOR);
-        }
+        controller.getPalette().style(component, (c, palette) -> c.setBackground(palette.getBackgroundColor()));
     }
 
     private static void setTextColor(AppController controller, Component component) {
-        if (controller.getSettings().isDarkMode()) {
-            component.setForeground(DARK_MODE_TEXT_COLOR);
-        } else {
-            component.setForeground(LIGHT_MODE_TEXT_COLOR);
-        }
-
-        if (component instanceof JTextComponent textComponent) {
-            if (controller.getSettings().isDarkMode()) {
-                textComponent.setCaretColor(DARK_MODE_TEXT_CARET_COLOR);
-                textComponent.setSelectionColor(DARK_MODE_SELECTION_COLOR);
-                textComponent.setSelectedTextColor(DARK_MODE_SELECTED_TEXT_COLOR);
-            } else {
-                textComponent.setCaretColor(LIGHT_MODE_TEXT_CARET_COLOR);
-                textComponent.setSelectionColor(LIGHT_MODE_SELECTION_COLOR);
-                textComponent.setSelectedTextColor(LIGHT_MODE_SELECTED_TEXT_COLOR);
+        controller.getPalette().style(component, (c, palette) -> {
+            c.setForeground(palette.getTextColor());
+            if (c instanceof JTextComponent textComponent) {
+                textComponent.setCaretColor(palette.getTextCaretColor());
+                textComponent.setSelectionColor(palette.getSelectionColor());
+                textComponent.setSelectedTextColor(palette.getSelectedTextColor());
             }
-        }
+        });
     }
 
     private static void setBorder(AppController controller, JComponent component, boolean lineBorder) {
         if (lineBorder) {
-            component.setBorder(BorderFactory.createCompoundBorder(
-                    BorderFactory.createLineBorder(controller.getSettings().isDarkMode() ? DARK_MODE_BORDER_COLOR : LIGHT_MODE_BORDER_COLOR, 1, true),
+            controller.getPalette().style(component, (c, palette) -> c.setBorder(BorderFactory.createCompoundBorder(
+                    BorderFactory.createLineBorder(palette.getBorderColor(), 1, true),
                     new EmptyBorder(5, 5, 5, 5)
-            ));
+            )));
         } else {
             component.setBorder(new EmptyBorder(5, 5, 5, 5));
         }
@@ -0,0 +1,21 @@
+package org.voidnotes.notes.gui;
+
+import org.voidnotes.notes.base.PieceTableContent;
+import org.voidnotes.notes.base.TextSnapshot;
+
+import javax.swing.text.PlainDocument;
+
+public class NoteDocument extends PlainDocument {
+    public NoteDocument() {
+        super(new PieceTableContent());
+    }
+
+    public TextSnapshot getSnapshot() {
+        readLock();
+        try {
+            return ((PieceTableContent) getContent()).getSnapshot();
+        } finally {
+            readUnlock();
+        }
+    }
+}
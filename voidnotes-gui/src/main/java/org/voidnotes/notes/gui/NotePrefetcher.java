@@ -0,0 +1,77 @@
+package org.voidnotes.notes.gui;
+
+import org.voidnotes.notes.base.Threads;
+
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class NotePrefetcher {
+    private static final int MAX_PREFETCHED_NOTES = 4;
+
+    private record Prefetched(NoteDocument document, long size, long lastModified) {
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(Threads.daemonThreadFactory("note-prefetcher"));
+    private final Map<Path, Prefetched> prefetched = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, Prefetched> eldest) {
+            return size() > MAX_PREFETCHED_NOTES;
+        }
+    };
+
+    private Future<?> pending;
+
+    public void prefetch(Path path) {
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+        Path key = path.toAbsolutePath();
+        if (prefetched.containsKey(key)) {
+            return;
+        }
+        pending = executor.submit(() -> {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+                if (attributes.size() > EditorPanel.LAZY_LOAD_THRESHOLD) {
+                    return;
+                }
+                String text = Files.readString(key);
+                NoteDocument document = new NoteDocument();
+                document.insertString(0, text, null);
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                Prefetched note = new Prefetched(document, attributes.size(), attributes.lastModifiedTime().toMillis());
+                SwingUtilities.invokeLater(() -> prefetched.put(key, note));
+            } catch (IOException | BadLocationException e) {
+                // the note is read again when it's opened, missing or unreadable notes are reported there
+            }
+        });
+    }
+
+    public NoteDocument take(Path path) {
+        Prefetched note = prefetched.remove(path.toAbsolutePath());
+        if (note == null) {
+            return null;
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (attributes.size() == note.size() && attributes.lastModifiedTime().toMillis() == note.lastModified()) {
+                return note.document();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+}
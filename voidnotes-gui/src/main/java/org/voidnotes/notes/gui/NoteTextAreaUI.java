@@ -0,0 +1,17 @@
+package org.voidnotes.notes.gui;
+
+import javax.swing.*;
+import javax.swing.plaf.basic.BasicTextAreaUI;
+import javax.swing.text.Element;
+import javax.swing.text.View;
+
+public class NoteTextAreaUI extends BasicTextAreaUI {
+    @Override
+    public View create(Element element) {
+        JTextArea textArea = (JTextArea) getComponent();
+        if (textArea.getLineWrap() && !Boolean.TRUE.equals(element.getDocument().getProperty("i18n"))) {
+            return new CachedWrappedPlainView(element, textArea.getWrapStyleWord());
+        }
+        return super.create(element);
+    }
+}
@@ -0,0 +1,78 @@
+package org.voidnotes.notes.gui;
+
+import org.voidnotes.notes.base.UndoHistory;
+
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DocumentFilter;
+import javax.swing.text.JTextComponent;
+
+public class NoteUndoManager extends DocumentFilter {
+    private final JTextComponent editor;
+
+    private UndoHistory history;
+    private boolean applying = false;
+
+    public NoteUndoManager(JTextComponent editor) {
+        this.editor = editor;
+    }
+
+    public UndoHistory getHistory() {
+        return history;
+    }
+
+    public void setHistory(UndoHistory history) {
+        this.history = history;
+    }
+
+    @Override
+    public void insertString(FilterBypass fb, int offset, String text, AttributeSet attributes) throws BadLocationException {
+        changed(offset, "", text);
+        super.insertString(fb, offset, text, attributes);
+    }
+
+    @Override
+    public void remove(FilterBypass fb, int offset, int length) throws BadLocationException {
+        changed(offset, fb.getDocument().getText(offset, length), "");
+        super.remove(fb, offset, length);
+    }
+
+    @Override
+    public void replace(FilterBypass fb, int offset, int length, String text, AttributeSet attributes) throws BadLocationException {
+        changed(offset, fb.getDocument().getText(offset, length), text != null ? text : "");
+        super.replace(fb, offset, length, text, attributes);
+    }
+
+    private void changed(int offset, String removed, String inserted) {
+        if (history != null && !applying && (!removed.isEmpty() || !inserted.isEmpty())) {
+            history.changed(new UndoHistory.Change(offset, removed, inserted));
+        }
+    }
+
+    public void undo() {
+        UndoHistory.Change change = history != null ? history.undo() : null;
+        if (change != null) {
+            apply(change.offset(), change.inserted().length(), change.removed());
+        }
+    }
+
+    public void redo() {
+        UndoHistory.Change change = history != null ? history.redo() : null;
+        if (change != null) {
+            apply(change.offset(), change.removed().length(), change.inserted());
+        }
+    }
+
+    private void apply(int offset, int length, String text) {
+        applying = true;
+        try {
+            ((AbstractDocument) editor.getDocument()).replace(offset, length, text, null);
+            editor.setCaretPosition(offset + text.length());
+        } catch (BadLocationException e) {
+            e.printStackTrace();
+        } finally {
+            applying = false;
+        }
+    }
+}
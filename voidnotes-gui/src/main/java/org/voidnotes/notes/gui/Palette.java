@@ -0,0 +1,81 @@
+package org.voidnotes.notes.gui;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.BiConsumer;
+
+public class Palette {
+    private static final Color DARK_MODE_BORDER_COLOR = Color.DARK_GRAY;
+    private static final Color LIGHT_MODE_BORDER_COLOR = Color.LIGHT_GRAY;
+
+    private static final Color DARK_MODE_BACKGROUND_COLOR = new Color(0x1E1E1E);
+    private static final Color LIGHT_MODE_BACKGROUND_COLOR = Color.WHITE;
+
+    private static final Color DARK_MODE_TEXT_COLOR = new Color(0xCCCCCC);
+    private static final Color LIGHT_MODE_TEXT_COLOR = new Color(0x333333);
+
+    private static final Color DARK_MODE_TEXT_CARET_COLOR = new Color(0xEEEEEE);
+    private static final Color LIGHT_MODE_TEXT_CARET_COLOR = Color.BLACK;
+
+    private static final Color DARK_MODE_SELECTION_COLOR = new Color(0x999999);
+    private static final Color LIGHT_MODE_SELECTION_COLOR = new Color(0xCCCCCC);
+
+    private static final Color DARK_MODE_SELECTED_TEXT_COLOR = Color.BLACK;
+    private static final Color LIGHT_MODE_SELECTED_TEXT_COLOR = Color.BLACK;
+
+    // stylers get the component passed in, so the weak keys aren't kept alive by their own values
+    private final Map<Component, List<BiConsumer<Component, Palette>>> stylers = new WeakHashMap<>();
+    private boolean darkMode;
+
+    public Palette(boolean darkMode) {
+        this.darkMode = darkMode;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends Component> void style(T component, BiConsumer<T, Palette> styler) {
+        styler.accept(component, this);
+        stylers.computeIfAbsent(component, c -> new ArrayList<>()).add((c, palette) -> styler.accept((T) c, palette));
+    }
+
+    public boolean isDarkMode() {
+        return darkMode;
+    }
+
+    public void setDarkMode(boolean darkMode) {
+        if (this.darkMode == darkMode) {
+            return;
+        }
+        this.darkMode = darkMode;
+        stylers.forEach((component, componentStylers) -> componentStylers.forEach(styler -> styler.accept(component, this)));
+        for (Window window : Window.getWindows()) {
+            window.repaint();
+        }
+    }
+
+    public Color getBorderColor() {
+        return darkMode ? DARK_MODE_BORDER_COLOR : LIGHT_MODE_BORDER_COLOR;
+    }
+
+    public Color getBackgroundColor() {
+        return darkMode ? DARK_MODE_BACKGROUND_COLOR : LIGHT_MODE_BACKGROUND_COLOR;
+    }
+
+    public Color getTextColor() {
+        return darkMode ? DARK_MODE_TEXT_COLOR : LIGHT_MODE_TEXT_COLOR;
+    }
+
+    public Color getTextCaretColor() {
+        return darkMode ? DARK_MODE_TEXT_CARET_COLOR : LIGHT_MODE_TEXT_CARET_COLOR;
+    }
+
+    public Color getSelectionColor() {
+        return darkMode ? DARK_MODE_SELECTION_COLOR : LIGHT_MODE_SELECTION_COLOR;
+    }
+
+    public Color getSelectedTextColor() {
+        return darkMode ? DARK_MODE_SELECTED_TEXT_COLOR : LIGHT_MODE_SELECTED_TEXT_COLOR;
+    }
+}
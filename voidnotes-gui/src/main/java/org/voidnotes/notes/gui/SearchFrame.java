@@ -1,6 +1,6 @@
 package org.voidnotes.notes.gui;
 
-import org.voidnotes.notes.base.AppController;
+import org.voidnotes.notes.AppController;
 import org.voidnotes.notes.base.Objects;
 import org.voidnotes.notes.base.Settings;
 
@@ -28,7 +28,11 @@ public class SearchFrame extends JFrame {
     private void initializeFrame() {
         setTitle(APP_NAME);
         setSize(controller.getSettings().getSearchFrameWidth(), controller.getSettings().getSearchFrameHeight());
-        setLocation(controller.getSettings().getSearchFrameX(), controller.getSettings().getSearchFrameY());
+        if (controller.getSettings().getSearchFrameX() == Settings.FRAME_POSITION_UNSET || controller.getSettings().getSearchFrameY() == Settings.FRAME_POSITION_UNSET) {
+            setLocationRelativeTo(null);
+        } else {
+            setLocation(controller.getSettings().getSearchFrameX(), controller.getSettings().getSearchFrameY());
+        }
         setMinimumSize(new Dimension(Settings.MIN_SEARCH_FRAME_WIDTH, Settings.MIN_SEARCH_FRAME_HEIGHT));
         setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
         setIconImage(GuiFactory.getAppImage());
@@ -79,7 +83,7 @@ public class SearchFrame extends JFrame {
         searchPanel.setSearchText(text);
     }
 
-    public DefaultListModel<Objects.SearchItem> getNoteListModel() {
+    public SearchResultListModel getNoteListModel() {
         return searchPanel.getNoteListModel();
     }
 
@@ -87,6 +91,14 @@ public class SearchFrame extends JFrame {
         return searchPanel.getNoteList();
     }
 
+    public void setPreviewVisible(boolean visible) {
+        searchPanel.setPreviewVisible(visible);
+    }
+
+    public void showPreview(String preview) {
+        searchPanel.showPreview(preview);
+    }
+
     public void focusSearchInput() {
         searchPanel.focusSearchInput();
     }
@@ -0,0 +1,172 @@
+package org.voidnotes.notes.gui;
+
+import org.voidnotes.notes.AppController;
+import org.voidnotes.notes.base.Objects;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextAttribute;
+import java.awt.font.TextLayout;
+import java.text.AttributedString;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class SearchItemRenderer extends JComponent implements ListCellRenderer<Objects.SearchItem> {
+    private static final Color LIGHT_MODE_TEXT_COLOR = new Color(0x777777);
+    private static final Color DARK_MODE_TEXT_COLOR = new Color(0x999999);
+
+    private static final Color LIGHT_MODE_BOLD_TEXT_COLOR = new Color(0x000000);
+    private static final Color DARK_MODE_BOLD_TEXT_COLOR = new Color(0xbbbbbb);
+
+    private static final Color LIGHT_MODE_SELECTED_TEXT_COLOR = new Color(0x333333);
+    private static final Color DARK_MODE_SELECTED_TEXT_COLOR = new Color(0x333333);
+
+    private static final Color LIGHT_MODE_SELECTED_BOLD_TEXT_COLOR = new Color(0x000000);
+    private static final Color DARK_MODE_SELECTED_BOLD_TEXT_COLOR = new Color(0x000000);
+
+    private static final int PADDING = 5;
+    private static final int MAX_CACHED_LAYOUTS = 512;
+
+    private final AppController controller;
+    private final Map<LayoutKey, TextLayout> layoutCache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LayoutKey, TextLayout> eldest) {
+            return size() > MAX_CACHED_LAYOUTS;
+        }
+    };
+
+    private TextLayout layout;
+    private int emptyLineHeight;
+
+    private record LayoutKey(Objects.SearchItem item, boolean selected, boolean darkMode, Font font) {
+    }
+
+    public SearchItemRenderer(AppController controller) {
+        this.controller = controller;
+        setOpaque(true);
+        setBorder(BorderFactory.createEmptyBorder(PADDING, PADDING, PADDING, PADDING));
+    }
+
+    @Override
+    public Component getListCellRendererComponent(JList list, Objects.SearchItem value, int index, boolean isSelected, boolean cellHasFocus) {
+        Font font = list.getFont();
+        setFont(font);
+        setBackground(isSelected ? list.getSelectionBackground() : list.getBackground());
+        setForeground(isSelected ? list.getSelectionForeground() : list.getForeground());
+
+        FontMetrics metrics = list.getFontMetrics(font);
+        emptyLineHeight = metrics.getHeight();
+        layout = null;
+        if (value != null && !value.label().isEmpty()) {
+            LayoutKey key = new LayoutKey(value, isSelected, controller.getPalette().isDarkMode(), font);
+            layout = layoutCache.get(key);
+            if (layout == null) {
+                layout = createLayout(key, metrics.getFontRenderContext());
+                layoutCache.put(key, layout);
+            }
+        }
+        return this;
+    }
+
+    private TextLayout createLayout(LayoutKey key, FontRenderContext context) {
+        String label = key.item().label();
+        AttributedString text = new AttributedString(label);
+        text.addAttribute(TextAttribute.FONT, key.font());
+
+        text.addAttribute(TextAttribute.FOREGROUND, getTextColor(key.selected(), key.darkMode()));
+
+        int[] matchPositions = key.item().matchPositions();
+        if (key.item().type() != Objects.SearchItemType.OPEN_NOTE || matchPositions == null || matchPositions.length == 0) {
+            return new TextLayout(text.getIterator(), context);
+        }
+
+        Font boldFont = key.font().deriveFont(Font.BOLD);
+        Color boldColor = getBoldTextColor(key.selected(), key.darkMode());
+        int start = 0;
+        while (start < matchPositions.length) {
+            int end = start + 1;
+            while (end < matchPositions.length && matchPositions[end] == matchPositions[end - 1] + 1) {
+                end++;
+            }
+            int from = matchPositions[start];
+            int to = Math.min(matchPositions[end - 1] + 1, label.length());
+            if (from < to) {
+                text.addAttribute(TextAttribute.FONT, boldFont, from, to);
+                text.addAttribute(TextAttribute.FOREGROUND, boldColor, from, to);
+            }
+            start = end;
+        }
+        return new TextLayout(text.getIterator(), context);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(getBackground());
+        g.fillRect(0, 0, getWidth(), getHeight());
+        if (layout == null) {
+            return;
+        }
+
+        Graphics2D g2 = (Graphics2D) g;
+        Object desktopHints = Toolkit.getDefaultToolkit().getDesktopProperty("awt.font.desktophints");
+        if (desktopHints instanceof Map<?, ?> hints) {
+            g2.addRenderingHints(hints);
+        }
+        Insets insets = getInsets();
+        layout.draw(g2, insets.left, insets.top + layout.getAscent());
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        Insets insets = getInsets();
+        if (layout == null) {
+            return new Dimension(insets.left + insets.right, insets.top + insets.bottom + emptyLineHeight);
+        }
+        int width = (int) Math.ceil(layout.getAdvance());
+        int height = (int) Math.ceil(layout.getAscent() + layout.getDescent() + layout.getLeading());
+        return new Dimension(insets.left + insets.right + width, insets.top + insets.bottom + Math.max(height, emptyLineHeight));
+    }
+
+    private Color getTextColor(boolean selected, boolean darkMode) {
+        if (selected) {
+            return darkMode ? DARK_MODE_SELECTED_TEXT_COLOR : LIGHT_MODE_SELECTED_TEXT_COLOR;
+        }
+        return darkMode ? DARK_MODE_TEXT_COLOR : LIGHT_MODE_TEXT_COLOR;
+    }
+
+    private Color getBoldTextColor(boolean selected, boolean darkMode) {
+        if (selected) {
+            return darkMode ? DARK_MODE_SELECTED_BOLD_TEXT_COLOR : LIGHT_MODE_SELECTED_BOLD_TEXT_COLOR;
+        }
+        return darkMode ? DARK_MODE_BOLD_TEXT_COLOR : LIGHT_MODE_BOLD_TEXT_COLOR;
+    }
+
+    @Override
+    public void invalidate() {
+    }
+
+    @Override
+    public void validate() {
+    }
+
+    @Override
+    public void revalidate() {
+    }
+
+    @Override
+    public void repaint(long tm, int x, int y, int width, int height) {
+    }
+
+    @Override
+    public void repaint(Rectangle r) {
+    }
+
+    @Override
+    protected void firePropertyChange(String propertyName, Object oldValue, Object newValue) {
+    }
+
+    @Override
+    public void firePropertyChange(String propertyName, boolean oldValue, boolean newValue) {
+    }
+}
@@ -1,12 +1,14 @@
 package org.voidnotes.notes.gui;
 
-import org.voidnotes.notes.base.AppController;
+import org.voidnotes.notes.AppController;
 import org.voidnotes.notes.base.Objects;
 
 import javax.swing.*;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
@@ -17,7 +19,9 @@ public class SearchPanel extends JPanel {
 
     private JTextField searchField;
     private JList<Objects.SearchItem> noteList;
-    private DefaultListModel<Objects.SearchItem> noteListModel;
+    private SearchResultListModel noteListModel;
+    private JTextArea previewArea;
+    private JScrollPane previewScrollPane;
 
     private boolean updateEnabled = true;
 
@@ -60,31 +64,30 @@ public class SearchPanel extends JPanel {
         searchField.addKeyListener(new KeyAdapter() {
             @Override
             public void keyPressed(KeyEvent e) {
-                if (e.getKeyCode() == KeyEvent.VK_DOWN && noteList.getSelectedIndex() < noteListModel.size() - 1) {
+                if (e.getKeyCode() == KeyEvent.VK_DOWN && noteList.getSelectedIndex() >= noteListModel.getSize() - 1) {
+                    controller.loadMoreSearchItems();
+                }
+                if (e.getKeyCode() == KeyEvent.VK_DOWN && noteList.getSelectedIndex() < noteListModel.getSize() - 1) {
                     noteList.setSelectedIndex(noteList.getSelectedIndex() + 1);
                     updateSearch();
                 } else if (e.getKeyCode() == KeyEvent.VK_UP && noteList.getSelectedIndex() > 0) {
                     noteList.setSelectedIndex(noteList.getSelectedIndex() - 1);
                     updateSearch();
-                } else if (e.getKeyCode() == KeyEvent.VK_ENTER && noteList.getSelectedValue() != null && noteList.getSelectedValue().type() != Objects.SearchItemType.INVALID) {
-                    controller.executeSearchInput(noteList.getSelectedValue());
+                } else if (e.getKeyCode() == KeyEvent.VK_ENTER) {
+                    controller.executeSearchSelection();
                 }
             }
         });
         add(searchField, BorderLayout.NORTH);
 
         noteList = GuiFactory.createList(controller);
-        noteListModel = new DefaultListModel<>();
+        noteListModel = new SearchResultListModel();
         noteList.setModel(noteListModel);
         noteList.addListSelectionListener(e -> {
             if (e.getValueIsAdjusting()) {
                 return;
             }
-            Objects.SearchItem item = noteList.getSelectedValue();
-            if (item == null) {
-                return;
-            }
-            controller.searchSelectionChanged(item);
+            controller.searchSelectionChanged(noteList.getSelectedValue());
         });
         noteList.addMouseListener(new MouseAdapter() {
             @Override
@@ -96,15 +99,33 @@ public class SearchPanel extends JPanel {
             }
         });
         noteList.setCellRenderer(new SearchItemRenderer(controller));
+        noteList.setPrototypeCellValue(new Objects.SearchItem(Objects.SearchItemType.INVALID, "Prototype", null, null));
         noteList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
 
         JScrollPane noteListScrollPane = GuiFactory.createScrollPane(controller, noteList, false);
+        noteListScrollPane.getViewport().addChangeListener(e -> {
+            if (!noteListModel.isEmpty() && noteList.getLastVisibleIndex() >= noteListModel.getSize() - 1) {
+                controller.loadMoreSearchItems();
+            }
+        });
+        // a fixed cell width keeps the list UI from rendering every row to find the widest one
+        noteListScrollPane.getViewport().addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                noteList.setFixedCellWidth(noteListScrollPane.getViewport().getWidth());
+            }
+        });
         add(noteListScrollPane, BorderLayout.CENTER);
+
+        previewArea = GuiFactory.createPreviewArea(controller);
+        previewScrollPane = GuiFactory.createScrollPane(controller, previewArea, false);
+        previewScrollPane.setVisible(controller.getSettings().isPreviewEnabled());
+        add(previewScrollPane, BorderLayout.SOUTH);
     }
 
     private void updateSearch() {
         noteList.ensureIndexIsVisible(noteList.getSelectedIndex());
-        if (noteList.getSelectedValue() != null && noteList.getSelectedValue().type() == Objects.SearchItemType.OPEN_NOTE) {
+        if (noteList.getSelectedValue() != null && noteList.getSelectedValue().type() == Objects.SearchItemType.OPEN_NOTE && !searchField.getText().startsWith(Objects.CONTENT_SEARCH_PREFIX)) {
             updateEnabled = false;
             searchField.setText(noteList.getSelectedValue().label());
             updateEnabled = true;
@@ -121,7 +142,7 @@ public class SearchPanel extends JPanel {
         searchField.setText(text);
     }
 
-    public DefaultListModel<Objects.SearchItem> getNoteListModel() {
+    public SearchResultListModel getNoteListModel() {
         return noteListModel;
     }
 
@@ -129,6 +150,19 @@ public class SearchPanel extends JPanel {
         return noteList;
     }
 
+    public void setPreviewVisible(boolean visible) {
+        previewScrollPane.setVisible(visible);
+        if (!visible) {
+            previewArea.setText("");
+        }
+        revalidate();
+    }
+
+    public void showPreview(String preview) {
+        previewArea.setText(preview != null ? preview : "");
+        previewArea.setCaretPosition(0);
+    }
+
     public void focusSearchInput() {
         searchField.requestFocus();
     }
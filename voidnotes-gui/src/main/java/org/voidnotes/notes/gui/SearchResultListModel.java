@@ -0,0 +1,44 @@
+package org.voidnotes.notes.gui;
+
+import org.voidnotes.notes.base.Objects;
+import org.voidnotes.notes.base.SearchResult;
+
+import javax.swing.*;
+
+public class SearchResultListModel extends AbstractListModel<Objects.SearchItem> {
+    private SearchResult searchResult = SearchResult.EMPTY;
+
+    @Override
+    public int getSize() {
+        return searchResult.size();
+    }
+
+    @Override
+    public Objects.SearchItem getElementAt(int index) {
+        return searchResult.getItems().get(index);
+    }
+
+    public boolean isEmpty() {
+        return searchResult.size() == 0;
+    }
+
+    public void setSearchResult(SearchResult searchResult) {
+        int oldSize = getSize();
+        this.searchResult = searchResult;
+        int rows = Math.max(oldSize, getSize());
+        if (rows > 0) {
+            fireContentsChanged(this, 0, rows - 1);
+        }
+    }
+
+    public void loadMore() {
+        if (!searchResult.hasMore()) {
+            return;
+        }
+        int oldSize = getSize();
+        searchResult.loadMore();
+        if (getSize() > oldSize) {
+            fireIntervalAdded(this, oldSize, getSize() - 1);
+        }
+    }
+}